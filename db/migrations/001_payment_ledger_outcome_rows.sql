@@ -0,0 +1,5 @@
+-- Выполняется один раз на базе, созданной до перехода журнала платежей на строки исходов.
+-- У попытки теперь есть строка PENDING и строка с ее исходом, поэтому прежняя уникальность
+-- (order_id, attempt) снимается; новую (order_id, attempt, status) создает Hibernate.
+-- psql -d sport-shop -f db/migrations/001_payment_ledger_outcome_rows.sql
+ALTER TABLE payment_ledger DROP CONSTRAINT IF EXISTS uk_payment_ledger_order_attempt;
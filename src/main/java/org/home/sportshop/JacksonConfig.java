@@ -0,0 +1,19 @@
+package org.home.sportshop;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Настройка общего ObjectMapper. Модуль Blackbird заменяет рефлексивные вызовы геттеров и сеттеров
+ * сгенерированными через LambdaMetafactory аксессорами; Spring Boot регистрирует бины Module автоматически.
+ */
+@Configuration
+public class JacksonConfig {
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -20,6 +20,8 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import jakarta.servlet.DispatcherType;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
@@ -33,6 +35,9 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Завершение асинхронных ответов (потоковый JSON, SSE): запрос уже авторизован при входе
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Public
                         .requestMatchers("/auth/**", "/").permitAll()
                         .requestMatchers(HttpMethod.POST, "/auth/login", "/auth/register").permitAll()
@@ -41,6 +46,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/products/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/products/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/products/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.PATCH, "/products/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/products/**").hasRole("ADMIN")
 
                         // Orders
@@ -51,11 +57,20 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.DELETE, "/orders/**").hasRole("ADMIN")
 
                         // Customers
-                        .requestMatchers(HttpMethod.GET, "/customers").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/customers", "/customers/search").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.POST, "/customers").hasAnyRole("USER", "ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/customers/**").hasAnyRole("USER", "ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/customers/**").hasAnyRole("ADMIN")
 
+                        // Payments
+                        .requestMatchers(HttpMethod.GET, "/payments/ledger", "/payments/resilience").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/payments/settlement/last").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/payments/settlement/run", "/payments/ledger/*/resolve").hasRole("ADMIN")
+
+                        // Analytics
+                        .requestMatchers(HttpMethod.GET, "/analytics/**").hasRole("ADMIN")
+                        .requestMatchers("/metrics/**").hasRole("ADMIN")
+
                         // Other
                         .anyRequest().authenticated())
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
@@ -70,7 +85,7 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:5500", "http://127.0.0.1:5500", "https://vladpolisuk-sport-shop.vercel.app"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
         configuration.setAllowCredentials(true);
         
@@ -2,8 +2,10 @@ package org.home.sportshop;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SportShopApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(SportShopApplication.class, args);
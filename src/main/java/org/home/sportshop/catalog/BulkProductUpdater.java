@@ -0,0 +1,254 @@
+package org.home.sportshop.catalog;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.dto.BulkProductUpdateRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Массовое изменение цен и остатков товаров множественными UPDATE без чтения сущностей.
+ * Товары обрабатываются порциями по chunk-size, каждая порция - одна инструкция UPDATE
+ * в отдельной транзакции: по списку ID или по фильтру с курсором по ID
+ * (UPDATE ... FROM (SELECT ... WHERE id > ? ORDER BY id LIMIT ? FOR UPDATE) ... RETURNING id).
+ * Прежний остаток берется из того же подзапроса, так что складу передается точная разница stock.
+ * updated_at обновляется, поэтому изменения попадают в ленту изменений каталога.
+ */
+@Component
+public class BulkProductUpdater {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LoggingService logger = LoggingService.getInstance();
+
+    @Value("${catalog.bulk-update.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    public BulkProductUpdater(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Если порция отклонена базой, изменение останавливается и возвращается итог уже
+     * зафиксированных порций с описанием ошибки
+     *
+     * @param stockAdjustments Получает после фиксации каждой порции разницу остатков измененных товаров
+     * @throws IllegalArgumentException если запрос некорректен
+     */
+    public Result apply(BulkProductUpdateRequest request, Consumer<Map<Long, Integer>> stockAdjustments) {
+        long started = System.currentTimeMillis();
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        if (byIds == (request.getFilter() != null)) {
+            throw new IllegalArgumentException("Нужно указать либо список ids, либо filter");
+        }
+        if (request.getPrice() == null && request.getStock() == null) {
+            throw new IllegalArgumentException("Не указано ни изменение цены, ни изменение остатка");
+        }
+
+        List<Object> setParameters = new ArrayList<>();
+        String setClause = buildSetClause(request, setParameters);
+
+        Result result = new Result();
+        try {
+            if (byIds) {
+                updateByIds(new ArrayList<>(new LinkedHashSet<>(request.getIds())), setClause, setParameters,
+                        stockAdjustments, result);
+            } else {
+                updateByFilter(request.getFilter(), setClause, setParameters, stockAdjustments, result);
+            }
+        } catch (DataAccessException e) {
+            // Зафиксированные порции не откатываются, поэтому возвращается частичный итог
+            result.error = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            logger.logError("Массовое изменение товаров прервано после " + result.chunks + " порций: " + result.error);
+        }
+        result.durationMs = System.currentTimeMillis() - started;
+        logger.logInfo("Массовое изменение товаров: обновлено " + result.updated + " за " + result.chunks
+                + " порций, " + result.durationMs + " мс");
+        return result;
+    }
+
+    private void updateByIds(List<Long> ids, String setClause, List<Object> setParameters,
+                             Consumer<Map<Long, Integer>> stockAdjustments, Result result) {
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            String sql = updateSql(setClause, "id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")");
+            List<Object> parameters = withUpdatedAt(setParameters);
+            parameters.addAll(chunk);
+            updateChunk(sql, parameters, stockAdjustments, result);
+        }
+    }
+
+    private void updateByFilter(BulkProductUpdateRequest.Filter filter, String setClause, List<Object> setParameters,
+                                Consumer<Map<Long, Integer>> stockAdjustments, Result result) {
+        List<Object> filterParameters = new ArrayList<>();
+        StringBuilder where = new StringBuilder("id > ?");
+        if (filter.getMinPrice() != null) {
+            where.append(" AND price >= ?");
+            filterParameters.add(filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            where.append(" AND price <= ?");
+            filterParameters.add(filter.getMaxPrice());
+        }
+        if (filter.getNameContains() != null && !filter.getNameContains().isBlank()) {
+            where.append(" AND name ILIKE ? ESCAPE '\\'");
+            filterParameters.add("%" + filter.getNameContains().trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+        }
+        if (filter.getInStock() != null) {
+            where.append(filter.getInStock() ? " AND stock > 0" : " AND stock <= 0");
+        }
+        String sql = updateSql(setClause, where + " ORDER BY id LIMIT ?");
+
+        long afterId = 0;
+        while (true) {
+            List<Object> parameters = withUpdatedAt(setParameters);
+            parameters.add(afterId);
+            parameters.addAll(filterParameters);
+            parameters.add(chunkSize);
+            List<Long> updatedIds = updateChunk(sql, parameters, stockAdjustments, result);
+            if (updatedIds.isEmpty()) {
+                break;
+            }
+            afterId = Collections.max(updatedIds);
+            if (updatedIds.size() < chunkSize) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * UPDATE порции товаров, выбранных условием; возвращает ID и изменение остатка каждого товара
+     */
+    private static String updateSql(String setClause, String condition) {
+        return "UPDATE products p SET " + setClause + " FROM (SELECT id, stock AS old_stock FROM products WHERE "
+                + condition + " FOR UPDATE) o WHERE p.id = o.id RETURNING p.id, p.stock - o.old_stock AS stock_delta";
+    }
+
+    /**
+     * Порция в отдельной транзакции; после фиксации складу передается разница остатков
+     */
+    private List<Long> updateChunk(String sql, List<Object> parameters, Consumer<Map<Long, Integer>> stockAdjustments,
+                                   Result result) {
+        Map<Long, Integer> stockDeltas = new HashMap<>();
+        List<Long> updatedIds = transactionTemplate.execute(status -> jdbcTemplate.query(sql, (rs, rowNum) -> {
+            long id = rs.getLong("id");
+            int delta = rs.getInt("stock_delta");
+            if (delta != 0) {
+                stockDeltas.put(id, delta);
+            }
+            return id;
+        }, parameters.toArray()));
+        if (updatedIds == null || updatedIds.isEmpty()) {
+            return List.of();
+        }
+        result.updated += updatedIds.size();
+        result.chunks++;
+        stockAdjustments.accept(stockDeltas);
+        return updatedIds;
+    }
+
+    /**
+     * Параметры SET с текущим временем для updated_at (свое для каждой порции)
+     */
+    private static List<Object> withUpdatedAt(List<Object> setParameters) {
+        List<Object> parameters = new ArrayList<>(setParameters);
+        parameters.add(LocalDateTime.now());
+        return parameters;
+    }
+
+    private static String buildSetClause(BulkProductUpdateRequest request, List<Object> parameters) {
+        List<String> assignments = new ArrayList<>();
+
+        BulkProductUpdateRequest.PriceChange price = request.getPrice();
+        if (price != null) {
+            BigDecimal value = price.getValue();
+            if (value == null) {
+                throw new IllegalArgumentException("Не указано значение изменения цены");
+            }
+            switch (mode(price.getMode())) {
+                case "SET" -> {
+                    if (value.signum() < 0) {
+                        throw new IllegalArgumentException("Цена не может быть отрицательной");
+                    }
+                    assignments.add("price = ?");
+                    parameters.add(value);
+                }
+                case "PERCENT" -> {
+                    if (value.compareTo(BigDecimal.valueOf(-100)) <= 0) {
+                        throw new IllegalArgumentException("Снижение цены должно быть меньше 100%");
+                    }
+                    assignments.add("price = ROUND(price * ?, 2)");
+                    parameters.add(BigDecimal.ONE.add(value.divide(BigDecimal.valueOf(100), MathContext.DECIMAL64)));
+                }
+                case "DELTA" -> {
+                    assignments.add("price = GREATEST(price + ?, 0)");
+                    parameters.add(value);
+                }
+                default -> throw new IllegalArgumentException("Неизвестный режим изменения цены: " + price.getMode());
+            }
+        }
+
+        BulkProductUpdateRequest.StockChange stock = request.getStock();
+        if (stock != null) {
+            Integer value = stock.getValue();
+            if (value == null) {
+                throw new IllegalArgumentException("Не указано значение изменения остатка");
+            }
+            switch (mode(stock.getMode())) {
+                case "SET" -> {
+                    if (value < 0) {
+                        throw new IllegalArgumentException("Остаток не может быть отрицательным");
+                    }
+                    assignments.add("stock = ?");
+                    parameters.add(value);
+                }
+                case "DELTA" -> {
+                    assignments.add("stock = GREATEST(stock + ?, 0)");
+                    parameters.add(value);
+                }
+                default -> throw new IllegalArgumentException("Неизвестный режим изменения остатка: " + stock.getMode());
+            }
+        }
+
+        assignments.add("updated_at = ?");
+        return String.join(", ", assignments);
+    }
+
+    private static String mode(String mode) {
+        return mode == null ? "SET" : mode.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Итог массового изменения
+     */
+    public static class Result {
+        private long updated;
+        private int chunks;
+        private long durationMs;
+        private String error;
+
+        public long getUpdated() { return updated; }
+        public int getChunks() { return chunks; }
+        public long getDurationMs() { return durationMs; }
+        public String getError() { return error; }
+        public boolean isCompleted() { return error == null; }
+    }
+}
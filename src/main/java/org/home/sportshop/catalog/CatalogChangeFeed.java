@@ -0,0 +1,123 @@
+package org.home.sportshop.catalog;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.home.sportshop.datasource.DataSourceRouting;
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.ProductDeletion;
+import org.home.sportshop.model.dto.CatalogChanges;
+import org.home.sportshop.model.dto.ProductResponse;
+import org.home.sportshop.repository.ProductDeletionRepository;
+import org.home.sportshop.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Лента изменений каталога для инкрементальной синхронизации клиентов.
+ * Измененные товары выбираются по индексу (updated_at, id) с курсором (since, afterId),
+ * удаления - из журнала product_deletions по ID записи. Изменения моложе safety-lag
+ * не отдаются: транзакция, начатая раньше, может зафиксироваться позже с меньшим updatedAt,
+ * и курсор клиента не должен ее обогнать.
+ * Лента читается с основной базы: отставание реплики больше safety-lag позволило бы курсору
+ * пройти мимо строк, еще не доехавших до реплики.
+ */
+@Component
+public class CatalogChangeFeed {
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ProductRepository productRepository;
+    private final ProductDeletionRepository deletionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final LoggingService logger = LoggingService.getInstance();
+
+    @Value("${catalog.changes.safety-lag-ms:2000}")
+    private long safetyLagMs;
+
+    @Value("${catalog.changes.tombstone-retention-days:30}")
+    private int retentionDays;
+
+    @Autowired
+    public CatalogChangeFeed(ProductRepository productRepository, ProductDeletionRepository deletionRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.deletionRepository = deletionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Записать удаление товара в журнал (в транзакции удаления)
+     */
+    public void recordDeletion(Long productId) {
+        deletionRepository.save(new ProductDeletion(productId, LocalDateTime.now()));
+    }
+
+    /**
+     * Изменения после курсора клиента.
+     *
+     * @param since          updatedAt последнего полученного товара; null - с начала каталога
+     * @param afterId        ID последнего полученного товара с этим updatedAt
+     * @param deletionsAfter ID последней полученной записи журнала удалений; null - удаления после since
+     */
+    public CatalogChanges getChanges(LocalDateTime since, Long afterId, Long deletionsAfter, int limit) {
+        return DataSourceRouting.onPrimary(() ->
+                readOnlyTransaction.execute(status -> loadChanges(since, afterId, deletionsAfter, limit)));
+    }
+
+    private CatalogChanges loadChanges(LocalDateTime since, Long afterId, Long deletionsAfter, int limit) {
+        LocalDateTime until = LocalDateTime.now().minusNanos(safetyLagMs * 1_000_000);
+        LocalDateTime from = since != null ? since : BEGINNING;
+        long fromId = afterId != null ? afterId : 0L;
+        // Записи журнала старше срока хранения удалены: клиенту нужна полная пересинхронизация
+        boolean resetRequired = since != null && since.isBefore(LocalDateTime.now().minusDays(retentionDays));
+
+        List<ProductResponse> products = productRepository.findChangedAfter(from, fromId, until, PageRequest.of(0, limit + 1));
+        boolean hasMore = products.size() > limit;
+        if (hasMore) {
+            products = new ArrayList<>(products.subList(0, limit));
+        }
+
+        long fromDeletion = deletionsAfter != null ? deletionsAfter
+                : since != null ? deletionRepository.findLastIdUpTo(since) : Long.MAX_VALUE;
+        List<Long> deleted = new ArrayList<>();
+        long nextDeletionsAfter = fromDeletion;
+        if (fromDeletion == Long.MAX_VALUE) {
+            // Первая синхронизация: удаленные товары клиенту неизвестны, передается только позиция журнала
+            nextDeletionsAfter = deletionRepository.findLastIdUpTo(until);
+        } else {
+            List<ProductDeletion> deletions = deletionRepository.findAfter(fromDeletion, until, PageRequest.of(0, limit + 1));
+            if (deletions.size() > limit) {
+                hasMore = true;
+                deletions = deletions.subList(0, limit);
+            }
+            for (ProductDeletion deletion : deletions) {
+                deleted.add(deletion.getProductId());
+                nextDeletionsAfter = deletion.getId();
+            }
+        }
+
+        LocalDateTime nextSince = from;
+        long nextAfterId = fromId;
+        if (!products.isEmpty()) {
+            ProductResponse last = products.get(products.size() - 1);
+            nextSince = last.getUpdatedAt();
+            nextAfterId = last.getId();
+        }
+        return new CatalogChanges(products, deleted, nextSince, nextAfterId, nextDeletionsAfter, hasMore, resetRequired);
+    }
+
+    @Scheduled(cron = "${catalog.changes.purge-cron:0 0 4 * * *}")
+    public void purgeTombstones() {
+        int removed = deletionRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        if (removed > 0) {
+            logger.logInfo("Удалено устаревших записей журнала удалений товаров: " + removed);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package org.home.sportshop.catalog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import org.home.sportshop.datasource.DataSourceRouting;
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.Product;
+import org.home.sportshop.model.dto.ProductResponse;
+import org.home.sportshop.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Готовый к отдаче снимок списка товаров (GET /products).
+ * JSON сериализуется и сжимается gzip один раз при изменении каталога, а не на каждый запрос.
+ * Перестройка выполняется в фоне после записи через ProductService (несколько изменений подряд
+ * сворачиваются в одну перестройку); новый снимок подменяет старый атомарно, запросы
+ * до окончания перестройки получают предыдущий снимок.
+ */
+@Component
+public class CatalogSnapshot implements ProductChangeListener {
+    private final ProductRepository productRepository;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final LoggingService logger = LoggingService.getInstance();
+    private final ExecutorService rebuildExecutor;
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    private volatile Snapshot current;
+
+    @Autowired
+    public CatalogSnapshot(ProductRepository productRepository, CatalogVersion catalogVersion, ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-snapshot-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Текущий снимок; если он еще не построен, строится синхронно
+     */
+    public Snapshot current() {
+        Snapshot snapshot = current;
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = current;
+                if (snapshot == null) {
+                    snapshot = rebuild();
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild();
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        scheduleRebuild();
+    }
+
+    @Override
+    public void onProductDeleted(Long productId) {
+        scheduleRebuild();
+    }
+
+    @Override
+    public void onCatalogChanged() {
+        scheduleRebuild();
+    }
+
+    @Override
+    public void onProductsSaved(List<Product> products) {
+        scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                // Флаг сбрасывается до чтения каталога: изменения во время перестройки запланируют следующую
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    logger.logError("Ошибка перестройки снимка каталога: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    private synchronized Snapshot rebuild() {
+        long started = System.currentTimeMillis();
+        // Версия читается до загрузки товаров, чтобы время изменения снимка не опережало его содержимое
+        CatalogVersion.Version version = catalogVersion.current();
+        // Перестройка идет сразу после записи, поэтому читает основную базу, а не реплику
+        List<ProductResponse> products = DataSourceRouting.onPrimary(() ->
+                readOnlyTransaction.execute(status -> productRepository.findAllResponses()));
+
+        long lastModified = Math.max(version.getLastModified(), 0L);
+        for (ProductResponse product : products) {
+            if (product.getUpdatedAt() != null) {
+                lastModified = Math.max(lastModified, toMillis(product.getUpdatedAt()));
+            }
+        }
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(products);
+            Snapshot snapshot = new Snapshot(json, gzip(json), products.size(), lastModified);
+            current = snapshot;
+            logger.logInfo("Снимок каталога построен: " + products.size() + " товаров, " + json.length + " байт (gzip "
+                    + snapshot.gzipped.length + ") за " + (System.currentTimeMillis() - started) + " мс");
+            return snapshot;
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось сериализовать каталог: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(data.length / 4, 64));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(data);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Неизменяемый снимок: JSON, его gzip-вариант и валидаторы для условных запросов.
+     * Массивы не копируются и не должны изменяться вызывающим кодом.
+     */
+    public static final class Snapshot {
+        private final byte[] json;
+        private final byte[] gzipped;
+        private final int count;
+        private final long lastModified;
+        private final String eTag;
+
+        private Snapshot(byte[] json, byte[] gzipped, int count, long lastModified) {
+            this.json = json;
+            this.gzipped = gzipped;
+            this.count = count;
+            this.lastModified = lastModified;
+            // Версия описывает содержимое снимка: число товаров и время последнего изменения
+            this.eTag = "c-" + count + "-" + lastModified;
+        }
+
+        public byte[] getJson() { return json; }
+        public byte[] getGzipped() { return gzipped; }
+        public int getCount() { return count; }
+        public long getLastModified() { return lastModified > 0 ? lastModified : -1L; }
+
+        /**
+         * ETag для выбранного кодирования: сжатый и несжатый варианты - разные представления
+         */
+        public String getETag(boolean gzipped) {
+            return "\"" + eTag + (gzipped ? "-gz" : "") + "\"";
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.home.sportshop.catalog;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.Product;
+import org.home.sportshop.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Версия каталога для условных GET-запросов.
+ * Складывается из числа товаров и времени последнего изменения (max(updatedAt) или момента удаления)
+ * и поддерживается в памяти по событиям ProductService; из базы читается только при первом
+ * обращении и после массовых изменений. Оповещается первым из слушателей каталога,
+ * чтобы производные снимки видели уже обновленную версию.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CatalogVersion implements ProductChangeListener {
+    private final ProductRepository productRepository;
+    private final LoggingService logger = LoggingService.getInstance();
+
+    private volatile Version current;
+
+    @Autowired
+    public CatalogVersion(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    public Version current() {
+        Version version = current;
+        if (version == null) {
+            version = refresh();
+        }
+        return version;
+    }
+
+    @Override
+    public synchronized void onProductCreated(Product product) {
+        Version version = current;
+        if (version != null) {
+            current = new Version(version.count + 1, Math.max(version.lastModified, toMillis(product.getUpdatedAt())));
+        }
+    }
+
+    @Override
+    public synchronized void onProductSaved(Product product) {
+        Version version = current;
+        if (version != null) {
+            current = new Version(version.count, Math.max(version.lastModified, toMillis(product.getUpdatedAt())));
+        }
+    }
+
+    @Override
+    public synchronized void onProductDeleted(Long productId) {
+        Version version = current;
+        if (version != null) {
+            // Удаление не оставляет updatedAt, поэтому временем изменения считается момент удаления
+            current = new Version(Math.max(version.count - 1, 0), Math.max(version.lastModified + 1, System.currentTimeMillis()));
+        }
+    }
+
+    @Override
+    public void onCatalogChanged() {
+        refresh();
+    }
+
+    private synchronized Version refresh() {
+        ProductRepository.CatalogStats stats = productRepository.findCatalogStats();
+        long count = stats.getCount() != null ? stats.getCount() : 0L;
+        long lastModified = toMillis(stats.getLastUpdatedAt());
+        Version version = new Version(count, current != null ? Math.max(lastModified, current.lastModified) : lastModified);
+        current = version;
+        logger.logInfo("Версия каталога: " + version.getETag());
+        return version;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+    }
+
+    /**
+     * ETag товара: ID и время его последнего изменения
+     */
+    public static String productETag(Product product) {
+        return "\"p-" + product.getId() + "-" + toMillis(product.getUpdatedAt()) + "\"";
+    }
+
+    public static long productLastModified(Product product) {
+        return product.getUpdatedAt() != null ? toMillis(product.getUpdatedAt()) : -1L;
+    }
+
+    /**
+     * Неизменяемый снимок версии каталога
+     */
+    public static final class Version {
+        private final long count;
+        private final long lastModified;
+
+        private Version(long count, long lastModified) {
+            this.count = count;
+            this.lastModified = lastModified;
+        }
+
+        public long getCount() { return count; }
+        public long getLastModified() { return lastModified > 0 ? lastModified : -1L; }
+        public String getETag() { return "\"c-" + count + "-" + lastModified + "\""; }
+    }
+}
@@ -0,0 +1,48 @@
+package org.home.sportshop.catalog;
+
+import java.util.List;
+
+import org.home.sportshop.model.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Вытеснение товаров из кэша второго уровня после изменений через JDBC
+ * (импорт, массовое изменение, списание остатков), которые Hibernate не видит.
+ * Изменения через сущности Hibernate отражает в кэше сам.
+ * Выполняется раньше остальных слушателей, чтобы они перечитывали уже актуальные товары.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ProductCacheEvictor implements ProductChangeListener {
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public ProductCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+    }
+
+    @Override
+    public void onProductDeleted(Long productId) {
+    }
+
+    @Override
+    public void onCatalogChanged() {
+        entityManagerFactory.getCache().evict(Product.class);
+    }
+
+    @Override
+    public void onProductsChanged(List<Long> productIds) {
+        for (Long productId : productIds) {
+            entityManagerFactory.getCache().evict(Product.class, productId);
+        }
+    }
+}
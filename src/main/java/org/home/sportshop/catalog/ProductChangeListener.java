@@ -0,0 +1,39 @@
+package org.home.sportshop.catalog;
+
+import java.util.List;
+
+import org.home.sportshop.model.Product;
+
+/**
+ * Слушатель изменений каталога товаров.
+ * Вызывается из ProductService после записи, чтобы производные структуры
+ * (поисковый индекс, кэши) обновлялись инкрементально, без перечитывания каталога.
+ */
+public interface ProductChangeListener {
+    void onProductSaved(Product product);
+
+    /**
+     * Добавлен новый товар; по умолчанию обрабатывается как обычное сохранение
+     */
+    default void onProductCreated(Product product) {
+        onProductSaved(product);
+    }
+
+    void onProductDeleted(Long productId);
+
+    /**
+     * Каталог изменен массово (например, импортом), и точечные изменения неизвестны
+     */
+    void onCatalogChanged();
+
+    default void onProductsSaved(List<Product> products) {
+        products.forEach(this::onProductSaved);
+    }
+
+    /**
+     * Поля товаров изменены SQL в обход сущностей (например, списаны остатки); известны только ID
+     */
+    default void onProductsChanged(List<Long> productIds) {
+        onCatalogChanged();
+    }
+}
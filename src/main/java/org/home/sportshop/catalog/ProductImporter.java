@@ -0,0 +1,403 @@
+package org.home.sportshop.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.Product;
+import org.home.sportshop.model.dto.ImportReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Потоковый массовый импорт товаров из CSV или NDJSON.
+ * Файл читается по записи, строки проверяются и накапливаются порциями по chunk-size;
+ * каждая порция записывается JDBC-пакетами в отдельной транзакции. Строки с ID обновляют
+ * существующий товар, строки без ID добавляют новый. Если пакет порции отклонен базой,
+ * порция повторяется построчно, чтобы в отчет попали только ошибочные строки.
+ * Память ограничена размером порции и числом сохраняемых ошибок.
+ */
+@Component
+public class ProductImporter {
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final String DEFAULT_IMAGE_URL = new Product().getImageUrl();
+    private static final String INSERT_SQL =
+            "INSERT INTO products (name, price, description, stock, image_url, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL =
+            "UPDATE products SET name = ?, price = ?, description = ?, stock = ?, image_url = COALESCE(?, image_url), updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final LoggingService logger = LoggingService.getInstance();
+
+    @Value("${catalog.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${catalog.import.max-errors:1000}")
+    private int maxErrors;
+
+    @Autowired
+    public ProductImporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+    }
+
+    public ImportReport createReport(String format) {
+        return new ImportReport(format, maxErrors);
+    }
+
+    /**
+     * Импорт с отчетом, созданным вызывающим кодом: если чтение потока или запись порции
+     * прерывается исключением, в отчете остаются итоги уже зафиксированных порций
+     *
+     * @param stockAdjustments Получает после фиксации каждой порции разницу остатков обновленных товаров
+     */
+    public ImportReport importProducts(InputStream input, ImportReport report,
+                                       Consumer<Map<Long, Integer>> stockAdjustments) throws IOException {
+        long started = System.currentTimeMillis();
+        String format = report.getFormat();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        RowSource source = FORMAT_NDJSON.equals(format) ? ndjsonSource(reader) : csvSource(reader);
+
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        ImportRow row;
+        while ((row = source.next()) != null) {
+            report.countRow();
+            if (row.error != null) {
+                report.addError(row.line, row.error);
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() >= chunkSize) {
+                writeChunk(chunk, report, stockAdjustments);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, report, stockAdjustments);
+        }
+
+        report.setDurationMs(System.currentTimeMillis() - started);
+        logger.logInfo("Импорт товаров (" + format + ") завершен: строк " + report.getTotalRows() + ", добавлено "
+                + report.getInserted() + ", обновлено " + report.getUpdated() + ", ошибок " + report.getFailed()
+                + " за " + report.getDurationMs() + " мс");
+        return report;
+    }
+
+    private void writeChunk(List<ImportRow> chunk, ImportReport report, Consumer<Map<Long, Integer>> stockAdjustments) {
+        try {
+            apply(transactionTemplate.execute(status -> writeBatch(chunk)), report, stockAdjustments);
+        } catch (DataAccessException e) {
+            logger.logWarning("Порция импорта отклонена (" + chunk.size() + " строк), повтор построчно: "
+                    + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            for (ImportRow row : chunk) {
+                try {
+                    apply(transactionTemplate.execute(status -> writeBatch(List.of(row))), report, stockAdjustments);
+                } catch (DataAccessException rowError) {
+                    report.addError(row.line, NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+    }
+
+    private static void apply(BatchResult result, ImportReport report, Consumer<Map<Long, Integer>> stockAdjustments) {
+        report.addInserted(result.inserted);
+        report.addUpdated(result.updated);
+        for (ImportRow row : result.notFound) {
+            report.addError(row.line, "Товар с ID " + row.id + " не найден");
+        }
+        stockAdjustments.accept(result.stockDeltas);
+    }
+
+    private BatchResult writeBatch(List<ImportRow> rows) {
+        List<ImportRow> inserts = new ArrayList<>();
+        List<ImportRow> updates = new ArrayList<>();
+        for (ImportRow row : rows) {
+            (row.id == null ? inserts : updates).add(row);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BatchResult result = new BatchResult();
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), (ps, row) -> {
+                setCommonParameters(ps, row, row.imageUrl != null ? row.imageUrl : DEFAULT_IMAGE_URL);
+                ps.setObject(6, now);
+                ps.setObject(7, now);
+            });
+            result.inserted = inserts.size();
+        }
+
+        if (!updates.isEmpty()) {
+            // Прежние остатки читаются под блокировкой строк, чтобы передать складу точную разницу
+            List<Long> ids = updates.stream().map(row -> row.id).distinct().toList();
+            Map<Long, Integer> oldStock = new HashMap<>();
+            jdbcTemplate.query("SELECT id, stock FROM products WHERE id IN ("
+                    + String.join(", ", Collections.nCopies(ids.size(), "?")) + ") FOR UPDATE",
+                    rs -> {
+                        oldStock.put(rs.getLong("id"), rs.getInt("stock"));
+                    }, ids.toArray());
+            int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (ps, row) -> {
+                setCommonParameters(ps, row, row.imageUrl);
+                ps.setObject(6, now);
+                ps.setLong(7, row.id);
+            });
+            int index = 0;
+            for (int[] batch : counts) {
+                for (int count : batch) {
+                    if (count == 0) {
+                        result.notFound.add(updates.get(index));
+                    } else {
+                        ImportRow row = updates.get(index);
+                        result.updated++;
+                        result.stockDeltas.put(row.id, row.stock - oldStock.getOrDefault(row.id, row.stock));
+                    }
+                    index++;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void setCommonParameters(PreparedStatement ps, ImportRow row, String imageUrl) throws SQLException {
+        ps.setString(1, row.name);
+        ps.setBigDecimal(2, row.price);
+        if (row.description != null) {
+            ps.setString(3, row.description);
+        } else {
+            ps.setNull(3, Types.VARCHAR);
+        }
+        ps.setInt(4, row.stock);
+        if (imageUrl != null) {
+            ps.setString(5, imageUrl);
+        } else {
+            ps.setNull(5, Types.VARCHAR);
+        }
+    }
+
+    /**
+     * CSV с заголовком: id (необязательно), name, price, description, stock, imageUrl.
+     * Разделитель - запятая или точка с запятой (определяется по заголовку).
+     */
+    private RowSource csvSource(BufferedReader reader) throws IOException {
+        reader.mark(64 * 1024);
+        String headerLine = reader.readLine();
+        reader.reset();
+        if (headerLine == null) {
+            return () -> null;
+        }
+        char delimiter = headerLine.indexOf(';') >= 0 && headerLine.indexOf(',') < 0 ? ';' : ',';
+        CsvRecordReader csv = new CsvRecordReader(reader, delimiter);
+
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = csv.next();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT).replace("_", "");
+            columns.put(name, i);
+        }
+        for (String required : List.of("name", "price", "stock")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("В заголовке CSV нет обязательной колонки: " + required);
+            }
+        }
+
+        boolean[] finished = {false};
+        return () -> {
+            if (finished[0]) {
+                return null;
+            }
+            List<String> record;
+            try {
+                record = csv.next();
+            } catch (IOException e) {
+                // Незакрытая кавычка: дальнейшая разметка файла непредсказуема
+                ImportRow broken = new ImportRow(csv.getRecordLine());
+                broken.error = e.getMessage();
+                finished[0] = true;
+                return broken;
+            }
+            if (record == null) {
+                return null;
+            }
+            ImportRow row = new ImportRow(csv.getRecordLine());
+            try {
+                row.id = parseId(column(record, columns, "id"));
+                row.name = column(record, columns, "name");
+                row.price = parsePrice(column(record, columns, "price"));
+                row.description = column(record, columns, "description");
+                row.stock = parseStock(column(record, columns, "stock"));
+                row.imageUrl = column(record, columns, "imageurl");
+                validate(row);
+            } catch (IllegalArgumentException e) {
+                row.error = e.getMessage();
+            }
+            return row;
+        };
+    }
+
+    /**
+     * NDJSON: по одному JSON-объекту товара на строку
+     */
+    private RowSource ndjsonSource(BufferedReader reader) {
+        long[] lineNumber = {0};
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber[0]++;
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            ImportRow row = new ImportRow(lineNumber[0]);
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                if (node == null || !node.isObject()) {
+                    throw new IllegalArgumentException("Строка не является JSON-объектом");
+                }
+                row.id = parseId(text(node, "id"));
+                row.name = text(node, "name");
+                row.price = parsePrice(text(node, "price"));
+                row.description = text(node, "description");
+                row.stock = parseStock(text(node, "stock"));
+                row.imageUrl = text(node, "imageUrl");
+                validate(row);
+            } catch (IllegalArgumentException e) {
+                row.error = e.getMessage();
+            } catch (IOException e) {
+                row.error = "Некорректный JSON: " + e.getMessage();
+            }
+            return row;
+        };
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        String text = value.isNumber() ? value.decimalValue().toPlainString() : value.asText().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static Long parseId(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            long id = Long.parseLong(value);
+            if (id <= 0) {
+                throw new IllegalArgumentException("Некорректный ID: " + value);
+            }
+            return id;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный ID: " + value);
+        }
+    }
+
+    private static BigDecimal parsePrice(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Не указана цена");
+        }
+        try {
+            BigDecimal price = new BigDecimal(value.replace(',', '.'));
+            if (price.signum() < 0) {
+                throw new IllegalArgumentException("Цена не может быть отрицательной: " + value);
+            }
+            return price;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректная цена: " + value);
+        }
+    }
+
+    private static Integer parseStock(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Не указан остаток");
+        }
+        try {
+            int stock = new BigDecimal(value).intValueExact();
+            if (stock < 0) {
+                throw new IllegalArgumentException("Остаток не может быть отрицательным: " + value);
+            }
+            return stock;
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Некорректный остаток: " + value);
+        }
+    }
+
+    private static void validate(ImportRow row) {
+        if (row.name == null) {
+            throw new IllegalArgumentException("Не указано название");
+        }
+        if (row.name.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("Название длиннее " + MAX_TEXT_LENGTH + " символов");
+        }
+        if (row.imageUrl != null && row.imageUrl.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("Ссылка на изображение длиннее " + MAX_TEXT_LENGTH + " символов");
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        ImportRow next() throws IOException;
+    }
+
+    private static final class ImportRow {
+        private final long line;
+        private Long id;
+        private String name;
+        private BigDecimal price;
+        private String description;
+        private Integer stock;
+        private String imageUrl;
+        private String error;
+
+        private ImportRow(long line) {
+            this.line = line;
+        }
+    }
+
+    private static final class BatchResult {
+        private long inserted;
+        private long updated;
+        private final List<ImportRow> notFound = new ArrayList<>();
+        private final Map<Long, Integer> stockDeltas = new HashMap<>();
+    }
+}
@@ -0,0 +1,501 @@
+package org.home.sportshop.catalog;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.home.sportshop.datasource.DataSourceRouting;
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.Product;
+import org.home.sportshop.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Встроенный полнотекстовый индекс каталога.
+ * Инвертированный индекс по названию и описанию товара с ранжированием BM25
+ * (совпадения в названии весят больше), фасетами по цене и наличию
+ * и автодополнением по префиксу слов названия.
+ * Строится при запуске потоковым чтением каталога и обновляется инкрементально
+ * через {@link ProductChangeListener}; при массовых изменениях перестраивается в фоне.
+ * Изменения, пришедшие во время перестройки, применяются к текущему индексу и запоминаются,
+ * а перед заменой повторяются на новом, чтобы перестройка их не потеряла.
+ */
+@Component
+public class ProductSearchIndex implements ProductChangeListener {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_BOOST = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final int MAX_SUGGESTION_SCAN = 500;
+    private static final int CLEAR_EVERY = 500;
+    private static final BigDecimal[] PRICE_FACET_BOUNDS = {
+        BigDecimal.valueOf(1000), BigDecimal.valueOf(3000), BigDecimal.valueOf(5000), BigDecimal.valueOf(10000)
+    };
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final LoggingService logger = LoggingService.getInstance();
+    private final ExecutorService rebuildExecutor;
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    private final Object rebuildLock = new Object();
+
+    private volatile IndexState state = new IndexState();
+    // Изменения во время перестройки (null, если перестройка не идет); доступ под блокировкой this
+    private List<Consumer<IndexState>> changesDuringRebuild;
+
+    @Autowired
+    public ProductSearchIndex(ProductRepository productRepository, EntityManager entityManager,
+                              PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-search-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long started = System.currentTimeMillis();
+            IndexState fresh = new IndexState();
+            synchronized (this) {
+                changesDuringRebuild = new ArrayList<>();
+            }
+            try {
+                DataSourceRouting.onPrimary(() -> readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<Product> products = productRepository.streamAll()) {
+                        int[] read = {0};
+                        products.forEach(product -> {
+                            fresh.add(IndexedProduct.of(product));
+                            if (++read[0] % CLEAR_EVERY == 0) {
+                                entityManager.clear();
+                            }
+                        });
+                    }
+                }));
+                int replayed;
+                synchronized (this) {
+                    replayed = changesDuringRebuild.size();
+                    changesDuringRebuild.forEach(change -> change.accept(fresh));
+                    state = fresh;
+                }
+                logger.logInfo("Поисковый индекс каталога построен: " + fresh.documents.size() + " товаров, "
+                        + fresh.postings.size() + " термов за " + (System.currentTimeMillis() - started) + " мс"
+                        + (replayed > 0 ? ", повторено изменений: " + replayed : ""));
+            } finally {
+                synchronized (this) {
+                    changesDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        IndexedProduct indexed = IndexedProduct.of(product);
+        apply(current -> {
+            current.remove(indexed.id);
+            current.add(indexed);
+        });
+    }
+
+    @Override
+    public void onProductDeleted(Long productId) {
+        apply(current -> current.remove(productId));
+    }
+
+    /**
+     * Перечитывание измененных товаров без полной перестройки индекса
+     */
+    @Override
+    public void onProductsChanged(List<Long> productIds) {
+        List<Product> products = DataSourceRouting.onPrimary(() ->
+                readOnlyTransaction.execute(status -> productRepository.findAllById(productIds)));
+        List<IndexedProduct> indexed = new ArrayList<>(products.size());
+        for (Product product : products) {
+            indexed.add(IndexedProduct.of(product));
+        }
+        apply(current -> {
+            for (IndexedProduct product : indexed) {
+                current.remove(product.id);
+                current.add(product);
+            }
+        });
+    }
+
+    /**
+     * Фоновая перестройка; несколько запросов подряд сворачиваются в одну перестройку
+     */
+    @Override
+    public void onCatalogChanged() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    logger.logError("Ошибка перестройки поискового индекса каталога: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Применить изменение к текущему индексу и запомнить его, если идет перестройка
+     */
+    private synchronized void apply(Consumer<IndexState> change) {
+        change.accept(state);
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change);
+        }
+    }
+
+    /**
+     * Поиск товаров.
+     * Все слова запроса должны встретиться в названии или описании; последнее слово
+     * дополнительно ищется как префикс. Пустой запрос возвращает весь каталог с учетом фильтров.
+     */
+    public SearchResult search(String query, BigDecimal minPrice, BigDecimal maxPrice, Boolean inStock, int page, int size) {
+        IndexState current = state;
+        Map<Long, Double> scores = score(current, query);
+
+        List<Hit> hits = new ArrayList<>();
+        Map<String, Long> priceFacet = new LinkedHashMap<>();
+        for (String label : priceFacetLabels()) {
+            priceFacet.put(label, 0L);
+        }
+        Map<String, Long> stockFacet = new LinkedHashMap<>();
+        stockFacet.put("inStock", 0L);
+        stockFacet.put("outOfStock", 0L);
+
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            IndexedProduct product = current.documents.get(entry.getKey());
+            if (product == null) {
+                continue;
+            }
+            boolean priceMatches = matchesPrice(product, minPrice, maxPrice);
+            boolean stockMatches = inStock == null || inStock == product.isInStock();
+
+            // Каждый фасет считается с учетом остальных фильтров, но без своего собственного
+            if (stockMatches && product.price != null) {
+                priceFacet.merge(priceFacetLabel(product.price), 1L, Long::sum);
+            }
+            if (priceMatches) {
+                stockFacet.merge(product.isInStock() ? "inStock" : "outOfStock", 1L, Long::sum);
+            }
+            if (priceMatches && stockMatches) {
+                hits.add(new Hit(product, entry.getValue()));
+            }
+        }
+
+        hits.sort(Comparator.comparingDouble(Hit::getScore).reversed().thenComparing(Hit::getId));
+        int from = Math.min(page * size, hits.size());
+        int to = Math.min(from + size, hits.size());
+
+        Map<String, Object> facets = new LinkedHashMap<>();
+        facets.put("price", priceFacet);
+        facets.put("stock", stockFacet);
+        return new SearchResult(new ArrayList<>(hits.subList(from, to)), hits.size(), facets);
+    }
+
+    /**
+     * Автодополнение: варианты продолжения последнего слова по словам из названий,
+     * упорядоченные по числу товаров
+     */
+    public List<String> autocomplete(String prefix, int limit) {
+        List<String> words = TextAnalyzer.words(prefix);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        String last = words.get(words.size() - 1);
+        String head = String.join(" ", words.subList(0, words.size() - 1));
+
+        List<Map.Entry<String, AtomicInteger>> candidates = new ArrayList<>();
+        for (Map.Entry<String, AtomicInteger> entry : state.suggestions.subMap(last, true, last + Character.MAX_VALUE, false).entrySet()) {
+            candidates.add(entry);
+            if (candidates.size() >= MAX_SUGGESTION_SCAN) {
+                break;
+            }
+        }
+        candidates.sort((a, b) -> Integer.compare(b.getValue().get(), a.getValue().get()));
+
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, AtomicInteger> candidate : candidates) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(head.isEmpty() ? candidate.getKey() : head + " " + candidate.getKey());
+        }
+        return result;
+    }
+
+    public int size() {
+        return state.documents.size();
+    }
+
+    private Map<Long, Double> score(IndexState current, String query) {
+        List<String> words = TextAnalyzer.words(query);
+        Map<Long, Double> scores = new HashMap<>();
+        if (words.isEmpty()) {
+            current.documents.keySet().forEach(id -> scores.put(id, 0.0));
+            return scores;
+        }
+
+        int documentCount = Math.max(current.documents.size(), 1);
+        double averageLength = Math.max((double) current.totalLength.get() / documentCount, 1.0);
+
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            Set<String> terms = new LinkedHashSet<>();
+            terms.add(TextAnalyzer.stem(word));
+            if (i == words.size() - 1) {
+                // Префикс сравнивается с исходными словами, а не с основами: "runni" должно найти "running" (основа "runn")
+                int expansions = 0;
+                for (String surface : current.words.subMap(word, true, word + Character.MAX_VALUE, false).keySet()) {
+                    terms.add(TextAnalyzer.stem(surface));
+                    if (++expansions >= MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                }
+            }
+
+            Map<Long, Double> wordScores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Integer> posting = current.postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                posting.forEach((id, tf) -> {
+                    IndexedProduct product = current.documents.get(id);
+                    if (product == null) {
+                        return;
+                    }
+                    double norm = tf + K1 * (1 - B + B * product.length / averageLength);
+                    wordScores.merge(id, idf * tf * (K1 + 1) / norm, Double::max);
+                });
+            }
+
+            // Каждое слово запроса должно совпасть хотя бы с одним термом товара
+            if (i == 0) {
+                scores.putAll(wordScores);
+            } else {
+                scores.keySet().retainAll(wordScores.keySet());
+                wordScores.forEach((id, score) -> scores.computeIfPresent(id, (key, total) -> total + score));
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    private static boolean matchesPrice(IndexedProduct product, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return true;
+        }
+        if (product.price == null) {
+            return false;
+        }
+        return (minPrice == null || product.price.compareTo(minPrice) >= 0)
+                && (maxPrice == null || product.price.compareTo(maxPrice) <= 0);
+    }
+
+    private static List<String> priceFacetLabels() {
+        List<String> labels = new ArrayList<>();
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal bound : PRICE_FACET_BOUNDS) {
+            labels.add(lower.toPlainString() + "-" + bound.toPlainString());
+            lower = bound;
+        }
+        labels.add(lower.toPlainString() + "+");
+        return labels;
+    }
+
+    private static String priceFacetLabel(BigDecimal price) {
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal bound : PRICE_FACET_BOUNDS) {
+            if (price.compareTo(bound) < 0) {
+                return lower.toPlainString() + "-" + bound.toPlainString();
+            }
+            lower = bound;
+        }
+        return lower.toPlainString() + "+";
+    }
+
+    /**
+     * Структуры индекса; при полной перестройке заменяются целиком
+     */
+    private static final class IndexState {
+        private final ConcurrentSkipListMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListMap<String, AtomicInteger> suggestions = new ConcurrentSkipListMap<>();
+        // Исходные слова названий и описаний с числом товаров - для раскрытия префикса в поиске
+        private final ConcurrentSkipListMap<String, AtomicInteger> words = new ConcurrentSkipListMap<>();
+        private final Map<Long, IndexedProduct> documents = new ConcurrentHashMap<>();
+        private final AtomicLong totalLength = new AtomicLong();
+
+        private void add(IndexedProduct product) {
+            documents.put(product.id, product);
+            totalLength.addAndGet(product.length);
+            product.termFrequencies.forEach((term, tf) ->
+                    postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(product.id, tf));
+            for (String word : product.nameWords) {
+                suggestions.computeIfAbsent(word, w -> new AtomicInteger()).incrementAndGet();
+            }
+            for (String word : product.words) {
+                words.computeIfAbsent(word, w -> new AtomicInteger()).incrementAndGet();
+            }
+        }
+
+        private void remove(Long productId) {
+            IndexedProduct product = documents.remove(productId);
+            if (product == null) {
+                return;
+            }
+            totalLength.addAndGet(-product.length);
+            for (String term : product.termFrequencies.keySet()) {
+                postings.computeIfPresent(term, (t, posting) -> {
+                    posting.remove(productId);
+                    return posting.isEmpty() ? null : posting;
+                });
+            }
+            for (String word : product.nameWords) {
+                suggestions.computeIfPresent(word, (w, count) -> count.decrementAndGet() <= 0 ? null : count);
+            }
+            for (String word : product.words) {
+                words.computeIfPresent(word, (w, count) -> count.decrementAndGet() <= 0 ? null : count);
+            }
+        }
+    }
+
+    /**
+     * Проиндексированный товар: данные для выдачи и частоты термов
+     */
+    private static final class IndexedProduct {
+        private final Long id;
+        private final String name;
+        private final BigDecimal price;
+        private final Integer stock;
+        private final String imageUrl;
+        private final Map<String, Integer> termFrequencies;
+        private final Set<String> nameWords;
+        private final Set<String> words;
+        private final int length;
+
+        private IndexedProduct(Product product, Map<String, Integer> termFrequencies, Set<String> nameWords,
+                               Set<String> words, int length) {
+            this.id = product.getId();
+            this.name = product.getName();
+            this.price = product.getPrice();
+            this.stock = product.getStock();
+            this.imageUrl = product.getImageUrl();
+            this.termFrequencies = termFrequencies;
+            this.nameWords = nameWords;
+            this.words = words;
+            this.length = length;
+        }
+
+        private static IndexedProduct of(Product product) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            int length = 0;
+            for (String term : TextAnalyzer.terms(product.getName())) {
+                frequencies.merge(term, NAME_BOOST, Integer::sum);
+                length += NAME_BOOST;
+            }
+            for (String term : TextAnalyzer.terms(product.getDescription())) {
+                frequencies.merge(term, 1, Integer::sum);
+                length++;
+            }
+            Set<String> nameWords = new HashSet<>(TextAnalyzer.words(product.getName()));
+            Set<String> words = new HashSet<>(nameWords);
+            words.addAll(TextAnalyzer.words(product.getDescription()));
+            return new IndexedProduct(product, frequencies, nameWords, words, length);
+        }
+
+        private boolean isInStock() {
+            return stock != null && stock > 0;
+        }
+    }
+
+    /**
+     * Найденный товар
+     */
+    public static class Hit {
+        private final Long id;
+        private final String name;
+        private final BigDecimal price;
+        private final Integer stock;
+        private final String imageUrl;
+        private final double score;
+
+        private Hit(IndexedProduct product, double score) {
+            this.id = product.id;
+            this.name = product.name;
+            this.price = product.price;
+            this.stock = product.stock;
+            this.imageUrl = product.imageUrl;
+            this.score = score;
+        }
+
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public BigDecimal getPrice() { return price; }
+        public Integer getStock() { return stock; }
+        public String getImageUrl() { return imageUrl; }
+        public double getScore() { return score; }
+    }
+
+    /**
+     * Страница результатов поиска с фасетами
+     */
+    public static class SearchResult {
+        private final List<Hit> content;
+        private final long totalElements;
+        private final Map<String, Object> facets;
+
+        public SearchResult(List<Hit> content, long totalElements, Map<String, Object> facets) {
+            this.content = content;
+            this.totalElements = totalElements;
+            this.facets = facets;
+        }
+
+        public List<Hit> getContent() { return content; }
+        public long getTotalElements() { return totalElements; }
+        public Map<String, Object> getFacets() { return facets; }
+    }
+}
@@ -0,0 +1,102 @@
+package org.home.sportshop.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Разбор текста для поиска: токенизация, приведение к нижнему регистру
+ * и облегченный стемминг (отсечение типовых окончаний) для русского и английского языков
+ */
+public final class TextAnalyzer {
+    private static final int MIN_STEM_LENGTH = 3;
+
+    // Окончания упорядочены от длинных к коротким: отсекается самое длинное подходящее
+    private static final String[] RUSSIAN_ENDINGS = {
+        "иями", "ями", "ами", "ией", "ого", "его", "ому", "ему", "ыми", "ими", "ться", "ешь", "ете", "ите",
+        "ий", "ый", "ой", "ая", "яя", "ое", "ее", "ые", "ие", "ых", "их", "ую", "юю", "ов", "ев", "ей",
+        "ам", "ям", "ах", "ях", "ом", "ем", "ть", "ия",
+        "ы", "и", "а", "я", "о", "е", "у", "ю", "ь", "й"
+    };
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Слова текста в нижнем регистре, без стемминга
+     */
+    public static List<String> words(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return result;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).replace('ё', 'е').split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Термы текста: слова после стемминга
+     */
+    public static List<String> terms(String text) {
+        List<String> words = words(text);
+        List<String> result = new ArrayList<>(words.size());
+        for (String word : words) {
+            result.add(stem(word));
+        }
+        return result;
+    }
+
+    public static String stem(String word) {
+        if (word.length() <= MIN_STEM_LENGTH) {
+            return word;
+        }
+        return isCyrillic(word) ? stemRussian(word) : stemEnglish(word);
+    }
+
+    private static String stemRussian(String word) {
+        for (String ending : RUSSIAN_ENDINGS) {
+            if (word.endsWith(ending) && word.length() - ending.length() >= MIN_STEM_LENGTH) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+
+    private static String stemEnglish(String word) {
+        if (word.endsWith("'s")) {
+            word = word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("ies") && word.length() > 4) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.endsWith("sses") || word.endsWith("xes") || word.endsWith("ches") || word.endsWith("shes")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us")) {
+            return word.substring(0, word.length() - 1);
+        }
+        if (word.endsWith("ing") && word.length() - 3 >= MIN_STEM_LENGTH + 1) {
+            return word.substring(0, word.length() - 3);
+        }
+        if (word.endsWith("ed") && word.length() - 2 >= MIN_STEM_LENGTH + 1) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("ly") && word.length() - 2 >= MIN_STEM_LENGTH + 1) {
+            return word.substring(0, word.length() - 2);
+        }
+        return word;
+    }
+
+    private static boolean isCyrillic(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.UnicodeBlock.of(word.charAt(i)) == Character.UnicodeBlock.CYRILLIC) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
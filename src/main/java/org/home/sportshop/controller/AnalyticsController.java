@@ -0,0 +1,38 @@
+package org.home.sportshop.controller;
+
+import java.util.Map;
+
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.notifications.AnalyticsNotificationObserver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Контроллер аналитики по заказам
+ */
+@RestController
+@RequestMapping("/analytics")
+@CrossOrigin(origins = {"http://localhost:5500", "http://127.0.0.1:5500", "https://vladpolisuk-sport-shop.vercel.app"}, allowCredentials = "true")
+public class AnalyticsController {
+    
+    private final AnalyticsNotificationObserver analyticsObserver;
+    private final LoggingService logger = LoggingService.getInstance();
+    
+    @Autowired
+    public AnalyticsController(AnalyticsNotificationObserver analyticsObserver) {
+        this.analyticsObserver = analyticsObserver;
+    }
+    
+    /**
+     * Текущие агрегаты по заказам: накопительные счетчики и гистограммы за скользящее окно
+     */
+    @GetMapping("/orders")
+    public ResponseEntity<Map<String, Object>> getOrderAnalytics() {
+        logger.logInfo("Запрос аналитики по заказам");
+        return ResponseEntity.ok(analyticsObserver.getSnapshot());
+    }
+}
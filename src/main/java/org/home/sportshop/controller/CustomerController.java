@@ -1,11 +1,14 @@
 package org.home.sportshop.controller;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.home.sportshop.logging.LoggingService;
 import org.home.sportshop.model.Customer;
 import org.home.sportshop.model.User;
+import org.home.sportshop.model.dto.CustomerSummary;
+import org.home.sportshop.service.CustomerSearchIndex;
 import org.home.sportshop.service.CustomerService;
 import org.home.sportshop.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,16 +41,41 @@ public class CustomerController {
         logger.logInfo("CustomerController инициализирован");
     }
 
+    /**
+     * Все клиенты в кратком виде: ID пользователя вместо вложенного пользователя с паролем и ролями
+     */
     @GetMapping
-    public List<Customer> getAllCustomers() {
+    public List<CustomerSummary> getAllCustomers() {
         logger.logInfo("Запрос на получение всех клиентов");
-        List<Customer> customers = customerService.getAllCustomers();
+        List<CustomerSummary> customers = customerService.getAllCustomers();
         logger.logInfo("Возвращено клиентов: " + customers.size());
         return customers;
     }
 
+    /**
+     * Постраничный поиск клиентов (type-ahead) по имени, телефону и email.
+     * Возвращает краткие данные клиентов без вложенного пользователя.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchCustomers(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), 100);
+        CustomerSearchIndex.SearchResult result = customerService.searchCustomers(query, pageNumber, pageSize);
+        
+        return ResponseEntity.ok(Map.of(
+            "content", result.getContent(),
+            "page", pageNumber,
+            "size", pageSize,
+            "totalElements", result.getTotalElements(),
+            "totalPages", (result.getTotalElements() + pageSize - 1) / pageSize
+        ));
+    }
+
     @PostMapping
-    public Customer addCustomer(@RequestBody Customer customer) {
+    public CustomerSummary addCustomer(@RequestBody Customer customer) {
         logger.logInfo("Запрос на добавление нового клиента: " + customer.getName());
         try {
             // Получаем текущего авторизованного пользователя
@@ -63,7 +91,7 @@ public class CustomerController {
             // Используем метод для поиска или создания клиента
             Customer savedCustomer = customerService.findOrCreateCustomer(customer, currentUser);
             logger.logInfo("Клиент получен/создан с ID: " + savedCustomer.getId());
-            return savedCustomer;
+            return CustomerSummary.fromCustomer(savedCustomer);
         } catch (Exception e) {
             logger.logError("Ошибка при добавлении клиента: " + e.getMessage());
             throw e;
@@ -71,12 +99,12 @@ public class CustomerController {
     }
 
     @PutMapping("/{id}")
-    public Customer updateCustomer(@PathVariable Long id, @RequestBody Customer customer) {
+    public CustomerSummary updateCustomer(@PathVariable Long id, @RequestBody Customer customer) {
         logger.logInfo("Запрос на обновление клиента с ID: " + id);
         try {
             Customer updatedCustomer = customerService.updateCustomer(id, customer);
             logger.logInfo("Клиент с ID: " + id + " успешно обновлен");
-            return updatedCustomer;
+            return CustomerSummary.fromCustomer(updatedCustomer);
         } catch (Exception e) {
             logger.logError("Ошибка при обновлении клиента с ID: " + id + ": " + e.getMessage());
             throw e;
@@ -121,7 +149,7 @@ public class CustomerController {
             Optional<Customer> existingCustomer = customerService.getCustomerByEmail(email);
             if (existingCustomer.isPresent()) {
                 logger.logInfo("Клиент с email " + email + " найден, ID: " + existingCustomer.get().getId());
-                return ResponseEntity.ok(existingCustomer.get());
+                return ResponseEntity.ok(CustomerSummary.fromCustomer(existingCustomer.get()));
             }
         }
         
@@ -130,7 +158,7 @@ public class CustomerController {
             Optional<Customer> existingCustomer = customerService.getCustomerByUserId(currentUser.getId());
             if (existingCustomer.isPresent()) {
                 logger.logInfo("Клиент с userId " + currentUser.getId() + " найден, ID: " + existingCustomer.get().getId());
-                return ResponseEntity.ok(existingCustomer.get());
+                return ResponseEntity.ok(CustomerSummary.fromCustomer(existingCustomer.get()));
             }
         }
         
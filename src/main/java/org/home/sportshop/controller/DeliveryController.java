@@ -1,7 +1,10 @@
 package org.home.sportshop.controller;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.OptionalDouble;
 
 import org.home.sportshop.delivery.DeliveryService;
 import org.home.sportshop.logging.LoggingService;
@@ -170,4 +173,39 @@ public class DeliveryController {
         boolean available = deliveryService.isDeliveryAvailableById(methodId, distance, weight);
         return ResponseEntity.ok(available);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Расчет стоимости, времени и доступности доставки по адресу.
+     * Расстояние определяется на сервере по справочнику адресов, а не передается клиентом.
+     */
+    @GetMapping("/quote")
+    public ResponseEntity<Map<String, Object>> getDeliveryQuote(
+            @RequestParam String method,
+            @RequestParam String address,
+            @RequestParam double weight) {
+        
+        logger.logInfo("Запрос на расчет доставки по адресу: метод=" + method +
+                      ", адрес=" + address + ", вес=" + weight + " кг");
+        
+        if (!deliveryService.isDeliveryMethodAvailable(method)) {
+            logger.logWarning("Запрошен неизвестный метод доставки: " + method);
+            return ResponseEntity.badRequest().build();
+        }
+        
+        OptionalDouble distance = deliveryService.resolveDistance(address);
+        if (distance.isEmpty()) {
+            return ResponseEntity.unprocessableEntity().body(Map.of(
+                "message", "Не удалось определить расстояние для адреса"
+            ));
+        }
+        
+        double km = distance.getAsDouble();
+        Map<String, Object> quote = new LinkedHashMap<>();
+        quote.put("method", method);
+        quote.put("distance", BigDecimal.valueOf(km).setScale(1, RoundingMode.HALF_UP));
+        quote.put("available", deliveryService.isDeliveryAvailable(method, km, weight));
+        quote.put("cost", deliveryService.calculateDeliveryCost(method, km, weight));
+        quote.put("time", deliveryService.calculateDeliveryTime(method, km));
+        return ResponseEntity.ok(quote);
+    }
+}
@@ -0,0 +1,58 @@
+package org.home.sportshop.controller;
+
+import java.util.Map;
+
+import org.home.sportshop.datasource.ConnectionPoolMetrics;
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.service.CacheStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Технические метрики приложения
+ */
+@RestController
+@RequestMapping("/metrics")
+@CrossOrigin(origins = {"http://localhost:5500", "http://127.0.0.1:5500", "https://vladpolisuk-sport-shop.vercel.app"}, allowCredentials = "true")
+public class MetricsController {
+
+    private final CacheStatisticsService cacheStatisticsService;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+    private final LoggingService logger = LoggingService.getInstance();
+
+    @Autowired
+    public MetricsController(CacheStatisticsService cacheStatisticsService, ConnectionPoolMetrics connectionPoolMetrics) {
+        this.cacheStatisticsService = cacheStatisticsService;
+        this.connectionPoolMetrics = connectionPoolMetrics;
+    }
+
+    /**
+     * Статистика кэша второго уровня Hibernate: попадания, промахи и размер по регионам
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+        logger.logInfo("Запрос статистики кэша второго уровня");
+        return ResponseEntity.ok(cacheStatisticsService.getStatistics());
+    }
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> resetCacheStatistics() {
+        logger.logWarning("Сброс статистики кэша второго уровня");
+        cacheStatisticsService.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Пулы соединений: занятые и свободные соединения, ожидающие потоки, время ожидания и удержания соединения
+     */
+    @GetMapping("/pool")
+    public ResponseEntity<Map<String, Object>> getPoolStatistics() {
+        logger.logInfo("Запрос метрик пулов соединений");
+        return ResponseEntity.ok(connectionPoolMetrics.getStatistics());
+    }
+}
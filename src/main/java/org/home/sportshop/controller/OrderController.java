@@ -2,9 +2,11 @@ package org.home.sportshop.controller;
 
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalDouble;
 import java.util.stream.Collectors;
 
 import org.home.sportshop.delivery.DeliveryService;
+import org.home.sportshop.inventory.InsufficientStockException;
 import org.home.sportshop.logging.LoggingService;
 import org.home.sportshop.model.Customer;
 import org.home.sportshop.model.Order;
@@ -14,11 +16,16 @@ import org.home.sportshop.model.User;
 import org.home.sportshop.model.dto.CreateOrderRequest;
 import org.home.sportshop.model.dto.OrderResponse;
 import org.home.sportshop.notifications.OrderNotificationService;
+import org.home.sportshop.notifications.OrderStreamObserver;
 import org.home.sportshop.payment.PaymentService;
+import org.home.sportshop.security.SecurityUtils;
 import org.home.sportshop.service.CustomerService;
 import org.home.sportshop.service.OrderService;
+import org.home.sportshop.service.UserOrdersCache;
 import org.home.sportshop.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -30,7 +37,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/orders")
@@ -42,18 +53,23 @@ public class OrderController {
     private final UserService userService;
     private final PaymentService paymentService;
     private final DeliveryService deliveryService;
+    private final OrderStreamObserver orderStreamObserver;
+    private final UserOrdersCache userOrdersCache;
     private final LoggingService logger = LoggingService.getInstance();
 
     @Autowired
     public OrderController(OrderService orderService, OrderNotificationService notificationService,
                            CustomerService customerService, UserService userService,
-                           PaymentService paymentService, DeliveryService deliveryService) {
+                           PaymentService paymentService, DeliveryService deliveryService,
+                           OrderStreamObserver orderStreamObserver, UserOrdersCache userOrdersCache) {
         this.orderService = orderService;
         this.notificationService = notificationService;
         this.customerService = customerService;
         this.userService = userService;
         this.paymentService = paymentService;
         this.deliveryService = deliveryService;
+        this.orderStreamObserver = orderStreamObserver;
+        this.userOrdersCache = userOrdersCache;
         logger.logInfo("OrderController инициализирован с " + notificationService.getObserversCount() + " наблюдателями");
     }
 
@@ -108,6 +124,19 @@ public class OrderController {
                 logger.logInfo("Преобразован код метода оплаты '" + paymentMethod + "' в ID: " + paymentMethodId);
             }
             
+            // Проверяем доступность доставки по расстоянию, рассчитанному на сервере
+            if (deliveryMethodId != null && deliveryAddress != null) {
+                OptionalDouble distance = deliveryService.resolveDistance(deliveryAddress);
+                if (distance.isPresent()) {
+                    logger.logInfo("Расстояние доставки для заказа: " + distance.getAsDouble() + " км");
+                    double weight = orderService.calculateOrderWeight(orderItems);
+                    logger.logInfo("Вес заказа: " + weight + " кг");
+                    if (!deliveryService.isDeliveryAvailableById(deliveryMethodId, distance.getAsDouble(), weight)) {
+                        throw new IllegalArgumentException("Выбранный метод доставки недоступен для адреса: " + deliveryAddress);
+                    }
+                }
+            }
+            
             // Создаем заказ с данными о доставке и оплате
             Order order = orderService.createOrder(customer, orderItems, deliveryMethodId, deliveryAddress, paymentMethodId);
             
@@ -116,51 +145,73 @@ public class OrderController {
             
             logger.logInfo("Заказ успешно создан с ID: " + order.getId());
             return OrderResponse.fromOrder(order);
+        } catch (InsufficientStockException e) {
+            logger.logWarning("Заказ не создан: " + e.getMessage());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
         } catch (Exception e) {
             logger.logError("Ошибка при создании заказа: " + e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * Все заказы потоковым JSON: ответ пишется по мере чтения заказов из базы, а не собирается целиком
+     */
     @GetMapping
-    public List<OrderResponse> getAllOrders() {
+    public ResponseEntity<StreamingResponseBody> getAllOrders() {
         logger.logInfo("Запрос на получение всех заказов");
-        try {
-            List<OrderResponse> orders = orderService.getAllOrders().stream()
-                    .map(OrderResponse::fromOrder)
-                    .collect(Collectors.toList());
-            logger.logInfo("Возвращено заказов: " + orders.size());
-            return orders;
-        } catch (Exception e) {
-            logger.logError("Ошибка при получении заказов: " + e.getMessage());
-            throw e;
-        }
+        StreamingResponseBody body = output -> {
+            try {
+                long written = orderService.writeAllOrders(output);
+                logger.logInfo("Возвращено заказов: " + written);
+            } catch (Exception e) {
+                logger.logError("Ошибка при получении заказов: " + e.getMessage());
+                throw e;
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
     
     @GetMapping("/my")
-    public List<OrderResponse> getCurrentUserOrders() {
-        // Получаем текущего аутентифицированного пользователя
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
+    public ResponseEntity<List<OrderResponse>> getCurrentUserOrders(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        Long currentUserId = getCurrentUserId();
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), 200);
         
-        logger.logInfo("Запрос на получение заказов пользователя: " + username);
+        logger.logInfo("Запрос на получение заказов пользователя с ID: " + currentUserId);
         try {
-            // Получаем заказы текущего пользователя
-            List<Order> userOrders = orderService.getOrdersByUsername(username);
-            
-            // Преобразуем в DTO и возвращаем
-            List<OrderResponse> response = userOrders.stream()
-                    .map(OrderResponse::fromOrder)
-                    .collect(Collectors.toList());
+            UserOrdersCache.CachedPage orders = userOrdersCache.getOrLoad(currentUserId, pageNumber, pageSize,
+                    () -> orderService.getUserOrdersPage(currentUserId, pageNumber, pageSize));
             
-            logger.logInfo("Возвращено заказов для пользователя " + username + ": " + response.size());
-            return response;
+            logger.logInfo("Возвращено заказов для пользователя с ID " + currentUserId + ": " + orders.getContent().size());
+            return ResponseEntity.ok()
+                    .header("X-Total-Count", String.valueOf(orders.getTotalElements()))
+                    .header("X-Total-Pages", String.valueOf(orders.getTotalPages()))
+                    .body(orders.getContent());
         } catch (Exception e) {
-            logger.logError("Ошибка при получении заказов пользователя " + username + ": " + e.getMessage());
+            logger.logError("Ошибка при получении заказов пользователя с ID " + currentUserId + ": " + e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * Поток изменений статусов заказов текущего пользователя (Server-Sent Events)
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCurrentUserOrders() {
+        Long userId = getCurrentUserId();
+        
+        logger.logInfo("Подключение к потоку заказов пользователя с ID: " + userId);
+        try {
+            return orderStreamObserver.subscribe(userId);
+        } catch (IllegalStateException e) {
+            logger.logWarning(e.getMessage());
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     public OrderResponse updateOrderStatus(@PathVariable Long id, @RequestBody Map<String, String> updateData) {
         String status = updateData.get("status");
@@ -188,4 +239,16 @@ public class OrderController {
             throw e;
         }
     }
+
+    /**
+     * ID текущего пользователя из токена; для старых токенов без claim userId - по имени пользователя
+     */
+    private Long getCurrentUserId() {
+        Long userId = SecurityUtils.getCurrentUserId();
+        if (userId != null) {
+            return userId;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return userService.getUserByUsername(authentication.getName()).getId();
+    }
 }
\ No newline at end of file
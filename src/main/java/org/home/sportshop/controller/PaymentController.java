@@ -1,17 +1,31 @@
 package org.home.sportshop.controller;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.PaymentLedgerEntry;
+import org.home.sportshop.payment.AsyncPaymentProcessor;
+import org.home.sportshop.payment.PaymentLedgerService;
+import org.home.sportshop.payment.PaymentOutcomeUnknownException;
 import org.home.sportshop.payment.PaymentService;
+import org.home.sportshop.payment.PaymentStatus;
+import org.home.sportshop.payment.SettlementJob;
+import org.home.sportshop.payment.SettlementReport;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -19,11 +33,18 @@ import org.springframework.web.bind.annotation.RestController;
 public class PaymentController {
     
     private final PaymentService paymentService;
+    private final AsyncPaymentProcessor asyncPaymentProcessor;
+    private final PaymentLedgerService ledgerService;
+    private final SettlementJob settlementJob;
     private final LoggingService logger = LoggingService.getInstance();
     
     @Autowired
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, AsyncPaymentProcessor asyncPaymentProcessor,
+                             PaymentLedgerService ledgerService, SettlementJob settlementJob) {
         this.paymentService = paymentService;
+        this.asyncPaymentProcessor = asyncPaymentProcessor;
+        this.ledgerService = ledgerService;
+        this.settlementJob = settlementJob;
     }
     
     @GetMapping("/methods")
@@ -40,11 +61,33 @@ public class PaymentController {
     public ResponseEntity<Map<String, Object>> processPayment(@RequestBody PaymentRequest request) {
         logger.logInfo("Получен запрос на проведение платежа: " + request);
         
-        boolean success = paymentService.processPayment(
-            request.getPaymentMethod(),
-            request.getOrderId(),
-            request.getAmount()
-        );
+        boolean success;
+        try {
+            success = paymentService.processPayment(
+                request.getPaymentMethod(),
+                request.getOrderId(),
+                request.getAmount()
+            );
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "success", false,
+                "orderId", request.getOrderId(),
+                "message", e.getMessage()
+            ));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "success", false,
+                "orderId", request.getOrderId(),
+                "message", e.getMessage()
+            ));
+        } catch (PaymentOutcomeUnknownException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of(
+                "success", false,
+                "outcomeUnknown", true,
+                "orderId", request.getOrderId(),
+                "message", e.getMessage()
+            ));
+        }
         
         Map<String, Object> response = Map.of(
             "success", success,
@@ -62,11 +105,33 @@ public class PaymentController {
     public ResponseEntity<Map<String, Object>> processPaymentById(@RequestBody PaymentRequestWithId request) {
         logger.logInfo("Получен запрос на проведение платежа по ID: " + request);
         
-        boolean success = paymentService.processPaymentById(
-            request.getPaymentMethodId(),
-            request.getOrderId(),
-            request.getAmount()
-        );
+        boolean success;
+        try {
+            success = paymentService.processPaymentById(
+                request.getPaymentMethodId(),
+                request.getOrderId(),
+                request.getAmount()
+            );
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "success", false,
+                "orderId", request.getOrderId(),
+                "message", e.getMessage()
+            ));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "success", false,
+                "orderId", request.getOrderId(),
+                "message", e.getMessage()
+            ));
+        } catch (PaymentOutcomeUnknownException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of(
+                "success", false,
+                "outcomeUnknown", true,
+                "orderId", request.getOrderId(),
+                "message", e.getMessage()
+            ));
+        }
         
         Map<String, Object> response = Map.of(
             "success", success,
@@ -80,6 +145,107 @@ public class PaymentController {
             : ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
     
+    /**
+     * Асинхронное проведение платежа: возвращает 202 и ID платежа для опроса статуса
+     */
+    @PostMapping("/async")
+    public ResponseEntity<Map<String, Object>> processPaymentAsync(@RequestBody PaymentRequest request) {
+        logger.logInfo("Получен запрос на асинхронное проведение платежа: " + request);
+        
+        try {
+            PaymentStatus status = asyncPaymentProcessor.submit(
+                request.getPaymentMethod(),
+                request.getOrderId(),
+                request.getAmount()
+            );
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "paymentId", status.getPaymentId(),
+                "orderId", status.getOrderId(),
+                "state", status.getState(),
+                "statusUrl", "/payments/async/" + status.getPaymentId()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("message", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Получение статуса асинхронного платежа
+     */
+    @GetMapping("/async/{paymentId}")
+    public ResponseEntity<PaymentStatus> getPaymentStatus(@PathVariable String paymentId) {
+        PaymentStatus status = asyncPaymentProcessor.getStatus(paymentId);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+    
+    /**
+     * Метрики изоляции провайдеров: состояние выключателя, загрузка пула, счетчики вызовов
+     */
+    @GetMapping("/resilience")
+    public ResponseEntity<List<Map<String, Object>>> getResilienceMetrics() {
+        return ResponseEntity.ok(paymentService.getResilienceMetrics());
+    }
+    
+    /**
+     * Постраничный просмотр журнала платежей (новые записи первыми)
+     */
+    @GetMapping("/ledger")
+    public ResponseEntity<Map<String, Object>> getLedger(
+            @RequestParam(required = false) String orderId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 200),
+                Sort.by(Sort.Direction.DESC, "id"));
+        Page<PaymentLedgerEntry> entries = ledgerService.getEntries(orderId, pageRequest);
+        
+        return ResponseEntity.ok(Map.of(
+            "content", entries.getContent(),
+            "page", entries.getNumber(),
+            "size", entries.getSize(),
+            "totalElements", entries.getTotalElements(),
+            "totalPages", entries.getTotalPages()
+        ));
+    }
+    
+    /**
+     * Закрытие зависшей попытки оплаты по результату сверки со шлюзом.
+     * Пока попытка не закрыта, повторная оплата заказа отклоняется.
+     */
+    @PostMapping("/ledger/{orderId}/resolve")
+    public ResponseEntity<?> resolveAttempt(@PathVariable String orderId, @RequestParam boolean success) {
+        logger.logInfo("Получен запрос на закрытие попытки оплаты заказа #" + orderId + " со статусом " + success);
+        try {
+            return ResponseEntity.ok(ledgerService.resolveAttempt(orderId, success));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Внеплановый запуск пакетного расчета и сверки платежей
+     */
+    @PostMapping("/settlement/run")
+    public ResponseEntity<?> runSettlement() {
+        logger.logInfo("Получен запрос на внеплановый расчет платежей");
+        try {
+            return ResponseEntity.ok(settlementJob.run());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Итоги последнего запуска пакетного расчета
+     */
+    @GetMapping("/settlement/last")
+    public ResponseEntity<SettlementReport> getLastSettlement() {
+        SettlementReport report = settlementJob.getLastReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+    
     /**
      * Класс для запроса на проведение платежа по коду метода
      */
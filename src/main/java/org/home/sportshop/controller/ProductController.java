@@ -1,76 +1,231 @@
 package org.home.sportshop.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import org.home.sportshop.catalog.BulkProductUpdater;
+import org.home.sportshop.catalog.CatalogSnapshot;
+import org.home.sportshop.catalog.CatalogVersion;
+import org.home.sportshop.catalog.ProductImporter;
+import org.home.sportshop.catalog.ProductSearchIndex;
 import org.home.sportshop.logging.LoggingService;
 import org.home.sportshop.model.Product;
+import org.home.sportshop.model.dto.BulkProductUpdateRequest;
+import org.home.sportshop.model.dto.CatalogChanges;
+import org.home.sportshop.model.dto.ImportReport;
+import org.home.sportshop.model.dto.ProductResponse;
 import org.home.sportshop.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/products")
 @CrossOrigin(origins = {"http://localhost:5500", "http://127.0.0.1:5500", "https://vladpolisuk-sport-shop.vercel.app"}, allowCredentials = "true")
 public class ProductController {
     private final ProductService productService;
+    private final CatalogSnapshot catalogSnapshot;
     private final LoggingService logger = LoggingService.getInstance();
 
+    @Value("${catalog.cache.max-age-seconds:60}")
+    private long cacheMaxAgeSeconds;
+
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, CatalogSnapshot catalogSnapshot) {
         this.productService = productService;
+        this.catalogSnapshot = catalogSnapshot;
         logger.logInfo("ProductController инициализирован");
     }
 
+    /**
+     * Список товаров из готового снимка каталога (JSON или gzip, без сериализации на запрос).
+     * При совпадении версии снимка (If-None-Match / If-Modified-Since) возвращается 304.
+     */
     @GetMapping
-    public List<Product> getAllProducts() {
+    public ResponseEntity<byte[]> getAllProducts(WebRequest request,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         logger.logInfo("Запрос на получение всех продуктов");
-        List<Product> products = productService.getAllProducts();
-        logger.logInfo("Возвращено продуктов: " + products.size());
-        return products;
+        CatalogSnapshot.Snapshot snapshot = catalogSnapshot.current();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String eTag = snapshot.getETag(gzip);
+        if (request.checkNotModified(eTag, snapshot.getLastModified())) {
+            logger.logInfo("Каталог не изменился, возвращается 304");
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+        }
+        logger.logInfo("Возвращено продуктов: " + snapshot.getCount());
+        ResponseEntity.BodyBuilder builder = withValidators(ResponseEntity.ok(), eTag, snapshot.getLastModified())
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzipped());
+        }
+        return builder.body(snapshot.getJson());
+    }
+
+    /**
+     * Полнотекстовый поиск товаров с ранжированием по релевантности.
+     * Последнее слово запроса ищется и как префикс; пустой запрос возвращает весь каталог.
+     * В ответе дополнительно возвращаются фасеты по диапазонам цен и наличию.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchProducts(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), 100);
+        ProductSearchIndex.SearchResult result = productService.searchProducts(query, minPrice, maxPrice, inStock, pageNumber, pageSize);
+
+        return ResponseEntity.ok(Map.of(
+            "content", result.getContent(),
+            "facets", result.getFacets(),
+            "page", pageNumber,
+            "size", pageSize,
+            "totalElements", result.getTotalElements(),
+            "totalPages", (result.getTotalElements() + pageSize - 1) / pageSize
+        ));
+    }
+
+    /**
+     * Инкрементальная синхронизация каталога: товары, измененные после курсора, и ID удаленных товаров.
+     * Клиент передает в следующий запрос nextSince, nextAfterId и nextDeletionsAfter из ответа,
+     * пока hasMore = true.
+     */
+    @GetMapping("/changes")
+    public CatalogChanges getCatalogChanges(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Long deletionsAfter,
+            @RequestParam(defaultValue = "500") int limit) {
+        return productService.getCatalogChanges(since, afterId, deletionsAfter, Math.min(Math.max(limit, 1), 1000));
+    }
+
+    @GetMapping("/autocomplete")
+    public List<String> autocompleteProducts(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return productService.autocompleteProducts(prefix, Math.min(Math.max(limit, 1), 50));
     }
 
     @GetMapping("/{id}")
-    public Product getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id, WebRequest request) {
         logger.logInfo("Запрос на получение продукта с ID: " + id);
         try {
             Product product = productService.getProductById(id);
+            String eTag = CatalogVersion.productETag(product);
+            long lastModified = CatalogVersion.productLastModified(product);
+            if (request.checkNotModified(eTag, lastModified)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl()).build();
+            }
             logger.logInfo("Продукт с ID: " + id + " успешно найден");
-            return product;
+            return withValidators(ResponseEntity.ok(), eTag, lastModified).body(ProductResponse.fromProduct(product));
         } catch (Exception e) {
             logger.logError("Ошибка при получении продукта с ID: " + id + ": " + e.getMessage());
             throw e;
         }
     }
 
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<?> getProductAvailability(@PathVariable Long id) {
+        Integer available = productService.getAvailableStock(id);
+        if (available == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Продукт с ID: " + id + " не найден"));
+        }
+        return ResponseEntity.ok(Map.of("productId", id, "available", available));
+    }
+
     @PostMapping
-    public Product addProduct(@RequestBody Product product) {
+    public ProductResponse addProduct(@RequestBody Product product) {
         logger.logInfo("Запрос на добавление нового продукта: " + product.getName());
         try {
             Product savedProduct = productService.addProduct(product);
             logger.logInfo("Продукт успешно добавлен с ID: " + savedProduct.getId());
-            return savedProduct;
+            return ProductResponse.fromProduct(savedProduct);
         } catch (Exception e) {
             logger.logError("Ошибка при добавлении продукта: " + e.getMessage());
             throw e;
         }
     }
     
+    /**
+     * Массовый импорт товаров из тела запроса (CSV с заголовком или NDJSON), читаемого потоком.
+     * Формат берется из параметра format или из Content-Type.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importProducts(
+            InputStream body,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType) throws IOException {
+        String resolvedFormat = format != null ? format.toLowerCase(Locale.ROOT)
+                : contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json") ? ProductImporter.FORMAT_NDJSON
+                : ProductImporter.FORMAT_CSV;
+        if (!ProductImporter.FORMAT_CSV.equals(resolvedFormat) && !ProductImporter.FORMAT_NDJSON.equals(resolvedFormat)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Неподдерживаемый формат импорта: " + format));
+        }
+        logger.logInfo("Запрос на импорт товаров, формат: " + resolvedFormat);
+        try {
+            ImportReport report = productService.importProducts(body, resolvedFormat);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            logger.logError("Ошибка импорта товаров: " + e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Массовое изменение цен и/или остатков товаров по списку ID или фильтру
+     */
+    @PatchMapping("/bulk")
+    public ResponseEntity<?> bulkUpdateProducts(@RequestBody BulkProductUpdateRequest request) {
+        logger.logInfo("Запрос на массовое изменение товаров");
+        try {
+            BulkProductUpdater.Result result = productService.bulkUpdateProducts(request);
+            if (!result.isCompleted()) {
+                // Часть порций могла быть зафиксирована: итог возвращается вместе с ошибкой
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(result);
+            }
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.logError("Ошибка массового изменения товаров: " + e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}")
-    public Product updateProduct(@PathVariable Long id, @RequestBody Product product) {
+    public ProductResponse updateProduct(@PathVariable Long id, @RequestBody Product product) {
         logger.logInfo("Запрос на обновление продукта с ID: " + id);
         try {
             Product updatedProduct = productService.updateProduct(id, product);
             logger.logInfo("Продукт с ID: " + id + " успешно обновлен");
-            return updatedProduct;
+            return ProductResponse.fromProduct(updatedProduct);
         } catch (Exception e) {
             logger.logError("Ошибка при обновлении продукта с ID: " + id + ": " + e.getMessage());
             throw e;
@@ -89,4 +244,36 @@ public class ProductController {
             throw e;
         }
     }
+
+    /**
+     * Клиент принимает gzip, если он указан в Accept-Encoding без q=0
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] parts = token.trim().split(";");
+            String coding = parts[0].trim();
+            if (coding.equals("gzip") || coding.equals("*")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, String eTag, long lastModified) {
+        builder.cacheControl(cacheControl()).eTag(eTag);
+        if (lastModified > 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
+    }
+
+    /**
+     * Публичное кэширование с обязательной перепроверкой по ETag после истечения max-age
+     */
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(cacheMaxAgeSeconds, TimeUnit.SECONDS).cachePublic().mustRevalidate();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package org.home.sportshop.datasource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.home.sportshop.notifications.SlidingWindowHistogram;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Метрики пулов соединений Hikari без Micrometer: время ожидания соединения, время его удержания
+ * и таймауты получения за скользящее окно, плюс текущее состояние пула.
+ * Трекер подключается ко всем HikariDataSource контекста (основной пул и пул реплики).
+ */
+@Component
+public class ConnectionPoolMetrics implements BeanPostProcessor, MetricsTrackerFactory {
+    private static final int WINDOW_MINUTES = 5;
+    private static final long[] ACQUIRE_BOUNDS_MICROS = {100, 500, 1_000, 5_000, 10_000, 50_000, 100_000, 500_000, 1_000_000};
+    private static final long[] USAGE_BOUNDS_MS = {1, 5, 10, 50, 100, 500, 1_000, 5_000};
+
+    private final Map<String, PoolTracker> pools = new ConcurrentSkipListMap<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource) {
+            HikariDataSource dataSource = (HikariDataSource) bean;
+            if (dataSource.getMetricsTrackerFactory() == null) {
+                dataSource.setMetricsTrackerFactory(this);
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolTracker tracker = new PoolTracker(poolStats);
+        pools.put(poolName, tracker);
+        return tracker;
+    }
+
+    /**
+     * Состояние и метрики пулов по имени пула
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        pools.forEach((poolName, tracker) -> result.put(poolName, tracker.snapshot()));
+        return result;
+    }
+
+    private static final class PoolTracker implements IMetricsTracker {
+        private final PoolStats poolStats;
+        private final SlidingWindowHistogram acquireMicros = new SlidingWindowHistogram(WINDOW_MINUTES, ACQUIRE_BOUNDS_MICROS);
+        private final SlidingWindowHistogram usageMillis = new SlidingWindowHistogram(WINDOW_MINUTES, USAGE_BOUNDS_MS);
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder created = new LongAdder();
+
+        private PoolTracker(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireMicros.record(TimeUnit.NANOSECONDS.toMicros(elapsedAcquiredNanos));
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageMillis.record(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            created.increment();
+        }
+
+        private Map<String, Object> snapshot() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("active", poolStats.getActiveConnections());
+            result.put("idle", poolStats.getIdleConnections());
+            result.put("total", poolStats.getTotalConnections());
+            result.put("pendingThreads", poolStats.getPendingThreads());
+            result.put("max", poolStats.getMaxConnections());
+            result.put("min", poolStats.getMinConnections());
+            result.put("connectionsCreated", created.sum());
+            result.put("acquireTimeouts", timeouts.sum());
+            result.put("acquireWaitMicros", acquireMicros.snapshot());
+            result.put("usageMillis", usageMillis.snapshot());
+            return result;
+        }
+    }
+}
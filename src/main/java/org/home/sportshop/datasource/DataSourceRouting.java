@@ -0,0 +1,41 @@
+package org.home.sportshop.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Принудительное чтение с основной базы в пределах вызова.
+ * Нужно фоновым перестройкам производных данных (снимок, поисковый индекс), которые
+ * запускаются сразу после записи и не должны видеть отстающую реплику.
+ * Без включенной маршрутизации на реплику вызов ничего не меняет.
+ */
+public final class DataSourceRouting {
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_FORCED.get();
+        PRIMARY_FORCED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_FORCED.remove();
+            } else {
+                PRIMARY_FORCED.set(previous);
+            }
+        }
+    }
+
+    public static void onPrimary(Runnable action) {
+        onPrimary(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public static boolean isPrimaryForced() {
+        return Boolean.TRUE.equals(PRIMARY_FORCED.get());
+    }
+}
@@ -0,0 +1,80 @@
+package org.home.sportshop.datasource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.home.sportshop.security.SecurityUtils;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Источник данных, направляющий read-only транзакции на реплику, а остальные - на основную базу.
+ * Решение принимается при получении физического соединения, поэтому источник должен быть обернут
+ * в LazyConnectionDataSourceProxy: к этому моменту признак readOnly транзакции уже выставлен.
+ * <p>
+ * На основной базе остаются:
+ * <ul>
+ *   <li>неявные транзакции методов Spring Data (findById и т.п. вне сервисной транзакции) -
+ *       ими часто читают сущность перед изменением;</li>
+ *   <li>чтения внутри DataSourceRouting.onPrimary;</li>
+ *   <li>чтения пользователя в окне после его собственной записи (ReadYourWritesTracker).</li>
+ * </ul>
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    private static final String REPOSITORY_TRANSACTION_PREFIX = "org.springframework.data.";
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite();
+            return Route.PRIMARY;
+        }
+        if (isRepositoryDefaultTransaction() || DataSourceRouting.isPrimaryForced()
+                || readYourWritesTracker.isPinned(SecurityUtils.getCurrentUserId())) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    /**
+     * Открывает окно чтения своих записей для пользователя после фиксации пишущей транзакции
+     */
+    private void trackWrite() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Long userId = SecurityUtils.getCurrentUserId();
+        if (userId == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWritesTracker.recordWrite(userId);
+            }
+        });
+    }
+
+    private static boolean isRepositoryDefaultTransaction() {
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name != null && name.startsWith(REPOSITORY_TRANSACTION_PREFIX);
+    }
+}
@@ -0,0 +1,58 @@
+package org.home.sportshop.datasource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Окно "чтения своих записей": после записи пользователя его чтения в течение
+ * app.datasource.replica.read-your-writes-ms идут на основную базу, а не на реплику,
+ * чтобы он не увидел данные до собственного изменения из-за задержки репликации.
+ */
+@Component
+public class ReadYourWritesTracker {
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    @Value("${app.datasource.replica.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.datasource.replica.read-your-writes-ms:5000}")
+    private long windowMs;
+
+    /**
+     * Отметить запись, затрагивающую данные пользователя
+     */
+    public void recordWrite(Long userId) {
+        if (!enabled || userId == null || windowMs <= 0) {
+            return;
+        }
+        lastWrites.put(userId, System.currentTimeMillis());
+    }
+
+    /**
+     * Должны ли чтения пользователя сейчас идти на основную базу
+     */
+    public boolean isPinned(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(userId);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - writtenAt < windowMs) {
+            return true;
+        }
+        lastWrites.remove(userId, writtenAt);
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.read-your-writes-sweep-ms:60000}")
+    public void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - windowMs;
+        lastWrites.values().removeIf(writtenAt -> writtenAt < cutoff);
+    }
+}
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 
 import org.home.sportshop.logging.LoggingService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
@@ -19,6 +20,12 @@ public class CourierDeliveryStrategy implements DeliveryStrategy {
     private static final double MAX_WEIGHT = 15.0; // Максимальный вес в кг
 
     private final LoggingService logger = LoggingService.getInstance();
+    private final DeliverySlotScheduler slotScheduler;
+
+    @Autowired
+    public CourierDeliveryStrategy(DeliverySlotScheduler slotScheduler) {
+        this.slotScheduler = slotScheduler;
+    }
 
     @Override
     public BigDecimal calculateDeliveryCost(double distance, double weight) {
@@ -48,6 +55,10 @@ public class CourierDeliveryStrategy implements DeliveryStrategy {
     @Override
     public boolean isAvailable(double distance, double weight) {
         boolean available = distance <= MAX_DISTANCE && weight <= MAX_WEIGHT;
+        if (available && !slotScheduler.hasCapacity(getDeliveryMethod())) {
+            logger.logWarning("Доставка курьером недоступна: нет свободных слотов");
+            return false;
+        }
         if (!available) {
             logger.logWarning("Доставка курьером недоступна для расстояния " + distance + " км и веса " + weight + " кг");
         }
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalDouble;
 import java.util.stream.Collectors;
 
 import org.home.sportshop.logging.LoggingService;
@@ -49,6 +50,12 @@ public class DeliveryService {
     @Autowired
     private ExpressDeliveryStrategy expressDeliveryStrategy;
     
+    @Autowired
+    private GeoDistanceService geoDistanceService;
+    
+    @Autowired
+    private DeliverySlotScheduler slotScheduler;
+    
     @PostConstruct
     public void init() {
         // Регистрируем доступные стратегии доставки
@@ -183,6 +190,37 @@ public class DeliveryService {
         return isDeliveryAvailable(code, distance, weight);
     }
     
+    /**
+     * Определение расстояния доставки по адресу на стороне сервера
+     */
+    public OptionalDouble resolveDistance(String deliveryAddress) {
+        return geoDistanceService.resolveDistance(deliveryAddress);
+    }
+    
+    /**
+     * Резервирование слота доставки для заказа
+     * 
+     * @return Код слота или null, если для метода доставки слоты не ведутся
+     * @throws IllegalStateException если свободных слотов нет
+     */
+    public String reserveSlot(Long deliveryMethodId) {
+        String code = getDeliveryMethodCodeById(deliveryMethodId);
+        if (code == null) {
+            return null;
+        }
+        return slotScheduler.reserve(code);
+    }
+    
+    /**
+     * Освобождение слота доставки заказа
+     */
+    public void releaseSlot(Long deliveryMethodId, String slotCode) {
+        String code = getDeliveryMethodCodeById(deliveryMethodId);
+        if (code != null) {
+            slotScheduler.release(code, slotCode);
+        }
+    }
+    
     /**
      * Получение списка доступных методов доставки
      */
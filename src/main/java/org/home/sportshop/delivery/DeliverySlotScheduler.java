@@ -0,0 +1,274 @@
+package org.home.sportshop.delivery;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.DeliverySlotUsage;
+import org.home.sportshop.repository.DeliverySlotUsageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Планировщик слотов доставки с ограниченной емкостью.
+ * Счетчики занятости по дням и временным окнам хранятся в памяти (атомарные),
+ * периодически сохраняются в таблицу delivery_slots и загружаются из нее при старте.
+ * Методы доставки без настроенной емкости считаются неограниченными.
+ */
+@Component
+public class DeliverySlotScheduler {
+    private final DeliverySlotUsageRepository slotRepository;
+    private final LoggingService logger = LoggingService.getInstance();
+    private final Map<SlotKey, SlotCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Integer> capacities = new HashMap<>();
+
+    @Value("${delivery.slots.windows:09-13,13-17,17-21}")
+    private List<String> windows;
+
+    @Value("${delivery.slots.horizon-days:2}")
+    private int horizonDays;
+
+    @Value("${delivery.slots.capacity.courier:40}")
+    private int courierCapacity;
+
+    @Value("${delivery.slots.capacity.express:15}")
+    private int expressCapacity;
+
+    @Autowired
+    public DeliverySlotScheduler(DeliverySlotUsageRepository slotRepository) {
+        this.slotRepository = slotRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        capacities.put("COURIER", courierCapacity);
+        capacities.put("EXPRESS", expressCapacity);
+
+        for (DeliverySlotUsage usage : slotRepository.findBySlotDateGreaterThanEqual(LocalDate.now())) {
+            SlotKey key = new SlotKey(usage.getDeliveryMethod(), usage.getSlotDate(), usage.getTimeWindow());
+            SlotCounter counter = new SlotCounter();
+            counter.entityId = usage.getId();
+            counter.reserved.set(usage.getReserved());
+            counters.put(key, counter);
+        }
+        logger.logInfo("DeliverySlotScheduler инициализирован: окна " + windows + ", загружено слотов: " + counters.size());
+    }
+
+    /**
+     * Проверка наличия свободного слота для метода доставки.
+     * Только чтение атомарных счетчиков, без обращения к базе данных.
+     */
+    public boolean hasCapacity(String deliveryMethod) {
+        Integer capacity = capacities.get(deliveryMethod);
+        if (capacity == null) {
+            return true;
+        }
+        LocalDate today = LocalDate.now();
+        LocalTime now = LocalTime.now();
+        for (int day = 0; day < horizonDays; day++) {
+            LocalDate date = today.plusDays(day);
+            for (String window : windows) {
+                if (day == 0 && !isBookableToday(window, now)) {
+                    continue;
+                }
+                SlotCounter counter = counters.get(new SlotKey(deliveryMethod, date, window));
+                if (counter == null || counter.reserved.get() < capacity) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Атомарное резервирование ближайшего свободного слота.
+     * При вызове внутри транзакции слот освобождается, если транзакция откатилась.
+     *
+     * @param deliveryMethod Метод доставки
+     * @return Код слота вида "2024-05-01 09-13" или null, если для метода слоты не ведутся
+     * @throws IllegalStateException если свободных слотов нет
+     */
+    public String reserve(String deliveryMethod) {
+        Integer capacity = capacities.get(deliveryMethod);
+        if (capacity == null) {
+            return null;
+        }
+        LocalDate today = LocalDate.now();
+        LocalTime now = LocalTime.now();
+        for (int day = 0; day < horizonDays; day++) {
+            LocalDate date = today.plusDays(day);
+            for (String window : windows) {
+                if (day == 0 && !isBookableToday(window, now)) {
+                    continue;
+                }
+                SlotKey key = new SlotKey(deliveryMethod, date, window);
+                SlotCounter counter = counters.computeIfAbsent(key, k -> new SlotCounter());
+                if (counter.tryIncrement(capacity)) {
+                    String slot = key.toSlotCode();
+                    releaseOnRollback(deliveryMethod, slot);
+                    logger.logInfo("Зарезервирован слот доставки " + deliveryMethod + ": " + slot);
+                    return slot;
+                }
+            }
+        }
+        logger.logWarning("Нет свободных слотов для метода доставки: " + deliveryMethod);
+        throw new IllegalStateException("Нет свободных слотов для доставки методом " + deliveryMethod);
+    }
+
+    /**
+     * Освобождение ранее зарезервированного слота
+     */
+    public void release(String deliveryMethod, String slotCode) {
+        if (slotCode == null || !capacities.containsKey(deliveryMethod)) {
+            return;
+        }
+        SlotKey key = SlotKey.parse(deliveryMethod, slotCode);
+        SlotCounter counter = counters.get(key);
+        if (counter != null && counter.decrement()) {
+            logger.logInfo("Освобожден слот доставки " + deliveryMethod + ": " + slotCode);
+        }
+    }
+
+    /**
+     * Периодическое сохранение измененных счетчиков и очистка прошедших дней
+     */
+    @Scheduled(fixedDelayString = "${delivery.slots.flush-interval-ms:10000}")
+    public void flush() {
+        LocalDate today = LocalDate.now();
+        counters.keySet().removeIf(key -> key.date.isBefore(today));
+
+        List<DeliverySlotUsage> changed = new ArrayList<>();
+        List<SlotCounter> changedCounters = new ArrayList<>();
+        counters.forEach((key, counter) -> {
+            if (counter.dirty.compareAndSet(true, false)) {
+                DeliverySlotUsage usage = new DeliverySlotUsage();
+                usage.setId(counter.entityId);
+                usage.setDeliveryMethod(key.method);
+                usage.setSlotDate(key.date);
+                usage.setTimeWindow(key.window);
+                usage.setReserved(counter.reserved.get());
+                changed.add(usage);
+                changedCounters.add(counter);
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<DeliverySlotUsage> saved = slotRepository.saveAll(changed);
+            for (int i = 0; i < saved.size(); i++) {
+                changedCounters.get(i).entityId = saved.get(i).getId();
+            }
+        } catch (Exception e) {
+            changedCounters.forEach(counter -> counter.dirty.set(true));
+            logger.logError("Ошибка при сохранении слотов доставки: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void releaseOnRollback(String deliveryMethod, String slot) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(deliveryMethod, slot);
+                }
+            }
+        });
+    }
+
+    private static boolean isBookableToday(String window, LocalTime now) {
+        int startHour = Integer.parseInt(window.substring(0, window.indexOf('-')));
+        return now.getHour() < startHour;
+    }
+
+    private static final class SlotCounter {
+        private final AtomicInteger reserved = new AtomicInteger();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private volatile Long entityId;
+
+        private boolean tryIncrement(int capacity) {
+            int current;
+            do {
+                current = reserved.get();
+                if (current >= capacity) {
+                    return false;
+                }
+            } while (!reserved.compareAndSet(current, current + 1));
+            dirty.set(true);
+            return true;
+        }
+
+        private boolean decrement() {
+            int current;
+            do {
+                current = reserved.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!reserved.compareAndSet(current, current - 1));
+            dirty.set(true);
+            return true;
+        }
+    }
+
+    private static final class SlotKey {
+        private final String method;
+        private final LocalDate date;
+        private final String window;
+
+        private SlotKey(String method, LocalDate date, String window) {
+            this.method = method;
+            this.date = date;
+            this.window = window;
+        }
+
+        private static SlotKey parse(String method, String slotCode) {
+            String[] parts = slotCode.trim().split(" ");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Некорректный код слота доставки: " + slotCode);
+            }
+            return new SlotKey(method, LocalDate.parse(parts[0]), parts[1]);
+        }
+
+        private String toSlotCode() {
+            return date + " " + window;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SlotKey)) return false;
+            SlotKey other = (SlotKey) o;
+            return method.equals(other.method) && date.equals(other.date) && window.equals(other.window);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, date, window);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package org.home.sportshop.delivery;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.home.sportshop.logging.LoggingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Сервис расчета расстояния доставки на стороне сервера.
+ * Геокодирует адрес по локальному справочнику центроидов индексов/городов
+ * (файл отображается в память, сеть не используется) и считает расстояние
+ * до ближайшего склада по дуге большого круга.
+ *
+ * Формат справочника: строки UTF-8 вида {@code индекс;город;широта;долгота},
+ * строки, начинающиеся с '#', игнорируются.
+ */
+@Service
+public class GeoDistanceService {
+    private static final Pattern POSTCODE_PATTERN = Pattern.compile("(?<!\\d)(\\d{6})(?!\\d)");
+    private static final String[] CITY_PREFIXES = {"город ", "г. ", "г.", "г "};
+
+    private final LoggingService logger = LoggingService.getInstance();
+
+    @Value("${delivery.geo.dataset-path:}")
+    private String datasetPath;
+
+    @Value("${delivery.geo.warehouses:55.7558,37.6173}")
+    private String warehousesConfig;
+
+    private WarehouseIndex warehouseIndex;
+
+    // Записи справочника, отсортированные по индексу: поиск бинарный, без объектов на запись
+    private int[] postcodes = new int[0];
+    private float[] distances = new float[0];
+    private float[] latitudes = new float[0];
+    private float[] longitudes = new float[0];
+    private Map<String, Integer> cityToRecord = Map.of();
+
+    @PostConstruct
+    public void init() {
+        warehouseIndex = new WarehouseIndex(parseWarehouses(warehousesConfig));
+        logger.logInfo("GeoDistanceService: зарегистрировано складов: " + warehouseIndex.size());
+
+        if (datasetPath == null || datasetPath.isBlank()) {
+            logger.logWarning("GeoDistanceService: справочник адресов не задан (delivery.geo.dataset-path), серверный расчет расстояния отключен");
+            return;
+        }
+
+        try {
+            load(Path.of(datasetPath));
+        } catch (IOException | RuntimeException e) {
+            logger.logError("GeoDistanceService: не удалось загрузить справочник " + datasetPath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Проверка, загружен ли справочник адресов
+     */
+    public boolean isEnabled() {
+        return postcodes.length > 0 && warehouseIndex.size() > 0;
+    }
+
+    /**
+     * Геокодирование адреса доставки по справочнику
+     *
+     * @param address Адрес доставки
+     * @return Координаты центроида индекса или города, либо null
+     */
+    public GeoPoint geocode(String address) {
+        int record = findRecord(address);
+        if (record < 0) {
+            return null;
+        }
+        return new GeoPoint(latitudes[record], longitudes[record]);
+    }
+
+    /**
+     * Расстояние от ближайшего склада до адреса доставки
+     *
+     * @param address Адрес доставки
+     * @return Расстояние в километрах или пустое значение, если адрес не распознан
+     */
+    public OptionalDouble resolveDistance(String address) {
+        int record = findRecord(address);
+        if (record < 0) {
+            logger.logWarning("Не удалось определить расстояние для адреса: " + address);
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(distances[record]);
+    }
+
+    private int findRecord(String address) {
+        if (address == null || address.isBlank() || !isEnabled()) {
+            return -1;
+        }
+
+        Matcher matcher = POSTCODE_PATTERN.matcher(address);
+        while (matcher.find()) {
+            int index = Arrays.binarySearch(postcodes, Integer.parseInt(matcher.group(1)));
+            if (index >= 0) {
+                return index;
+            }
+        }
+
+        for (String part : address.split(",")) {
+            Integer record = cityToRecord.get(normalizeCity(part));
+            if (record != null) {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    private void load(Path path) throws IOException {
+        long started = System.nanoTime();
+        List<Record> records = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Files.size(path));
+            int lineStart = 0;
+            int limit = buffer.limit();
+            for (int i = 0; i <= limit; i++) {
+                if (i == limit || buffer.get(i) == '\n') {
+                    Record record = parseLine(buffer, lineStart, i);
+                    if (record != null) {
+                        records.add(record);
+                    }
+                    lineStart = i + 1;
+                }
+            }
+        }
+
+        records.sort((a, b) -> Integer.compare(a.postcode, b.postcode));
+        int size = records.size();
+        int[] newPostcodes = new int[size];
+        float[] newDistances = new float[size];
+        float[] newLatitudes = new float[size];
+        float[] newLongitudes = new float[size];
+        Map<String, Integer> newCities = new HashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            Record record = records.get(i);
+            GeoPoint point = new GeoPoint(record.latitude, record.longitude);
+            GeoPoint warehouse = warehouseIndex.nearest(point);
+            newPostcodes[i] = record.postcode;
+            newLatitudes[i] = (float) record.latitude;
+            newLongitudes[i] = (float) record.longitude;
+            newDistances[i] = warehouse != null ? (float) point.distanceKm(warehouse) : Float.NaN;
+            if (!record.city.isEmpty()) {
+                newCities.putIfAbsent(record.city, i);
+            }
+        }
+
+        this.postcodes = newPostcodes;
+        this.distances = newDistances;
+        this.latitudes = newLatitudes;
+        this.longitudes = newLongitudes;
+        this.cityToRecord = newCities;
+
+        logger.logInfo(String.format(
+            "GeoDistanceService: загружено %d записей (%d городов) из %s за %d мс",
+            size, newCities.size(), path, (System.nanoTime() - started) / 1_000_000
+        ));
+    }
+
+    private Record parseLine(MappedByteBuffer buffer, int from, int to) {
+        if (to > from && buffer.get(to - 1) == '\r') {
+            to--;
+        }
+        if (to <= from || buffer.get(from) == '#') {
+            return null;
+        }
+
+        String[] fields = new String[4];
+        int field = 0;
+        int fieldStart = from;
+        for (int i = from; i <= to && field < fields.length; i++) {
+            if (i == to || buffer.get(i) == ';') {
+                byte[] bytes = new byte[i - fieldStart];
+                buffer.get(fieldStart, bytes);
+                fields[field++] = new String(bytes, StandardCharsets.UTF_8).trim();
+                fieldStart = i + 1;
+            }
+        }
+        if (field < fields.length) {
+            return null;
+        }
+
+        try {
+            double latitude = Double.parseDouble(fields[2]);
+            double longitude = Double.parseDouble(fields[3]);
+            if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+                logger.logWarning("GeoDistanceService: пропущена строка с некорректными координатами: " + String.join(";", fields));
+                return null;
+            }
+            return new Record(Integer.parseInt(fields[0]), normalizeCity(fields[1]), latitude, longitude);
+        } catch (NumberFormatException e) {
+            logger.logWarning("GeoDistanceService: пропущена некорректная строка: " + String.join(";", fields));
+            return null;
+        }
+    }
+
+    private static String normalizeCity(String value) {
+        String city = value.trim().toLowerCase(Locale.ROOT).replace('ё', 'е');
+        for (String prefix : CITY_PREFIXES) {
+            if (city.startsWith(prefix)) {
+                city = city.substring(prefix.length()).trim();
+                break;
+            }
+        }
+        return city;
+    }
+
+    private static List<GeoPoint> parseWarehouses(String config) {
+        List<GeoPoint> warehouses = new ArrayList<>();
+        if (config == null || config.isBlank()) {
+            return warehouses;
+        }
+        for (String entry : config.split(";")) {
+            String[] coords = entry.trim().split(",");
+            if (coords.length == 2) {
+                warehouses.add(new GeoPoint(Double.parseDouble(coords[0].trim()), Double.parseDouble(coords[1].trim())));
+            }
+        }
+        return warehouses;
+    }
+
+    private static final class Record {
+        private final int postcode;
+        private final String city;
+        private final double latitude;
+        private final double longitude;
+
+        private Record(int postcode, String city, double latitude, double longitude) {
+            this.postcode = postcode;
+            this.city = city;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+}
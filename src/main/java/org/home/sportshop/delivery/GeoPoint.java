@@ -0,0 +1,62 @@
+package org.home.sportshop.delivery;
+
+/**
+ * Географическая точка (широта и долгота в градусах)
+ */
+public final class GeoPoint {
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final double latitude;
+    private final double longitude;
+
+    public GeoPoint(double latitude, double longitude) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Некорректные координаты: " + latitude + ", " + longitude);
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Расстояние по дуге большого круга (формула гаверсинусов)
+     *
+     * @param other Вторая точка
+     * @return Расстояние в километрах
+     */
+    public double distanceKm(GeoPoint other) {
+        double dLat = Math.toRadians(other.latitude - latitude);
+        double dLon = Math.toRadians(other.longitude - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(other.latitude))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Декартовы координаты точки на единичной сфере.
+     * Евклидово расстояние между ними монотонно растет вместе с расстоянием по дуге,
+     * поэтому ближайший сосед в 3D совпадает с ближайшим по поверхности Земли.
+     */
+    double[] toUnitVector() {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        return new double[] {
+            Math.cos(lat) * Math.cos(lon),
+            Math.cos(lat) * Math.sin(lon),
+            Math.sin(lat)
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "GeoPoint [" + latitude + ", " + longitude + "]";
+    }
+}
@@ -0,0 +1,104 @@
+package org.home.sportshop.delivery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Пространственный индекс складов (k-d дерево по координатам на единичной сфере)
+ * для поиска ближайшего склада к точке доставки
+ */
+public class WarehouseIndex {
+    private final Node root;
+    private final int size;
+
+    public WarehouseIndex(List<GeoPoint> warehouses) {
+        List<Node> nodes = new ArrayList<>();
+        for (GeoPoint warehouse : warehouses) {
+            nodes.add(new Node(warehouse, warehouse.toUnitVector()));
+        }
+        this.size = nodes.size();
+        this.root = build(nodes, 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Найти ближайший к точке склад
+     *
+     * @param point Точка доставки
+     * @return Ближайший склад или null, если индекс пуст
+     */
+    public GeoPoint nearest(GeoPoint point) {
+        if (root == null) {
+            return null;
+        }
+        Search search = new Search(point.toUnitVector());
+        search.visit(root);
+        return search.best.point;
+    }
+
+    private static Node build(List<Node> nodes, int depth) {
+        if (nodes.isEmpty()) {
+            return null;
+        }
+        int axis = depth % 3;
+        nodes.sort(Comparator.comparingDouble(node -> node.coords[axis]));
+        int median = nodes.size() / 2;
+        Node node = nodes.get(median);
+        node.axis = axis;
+        node.left = build(new ArrayList<>(nodes.subList(0, median)), depth + 1);
+        node.right = build(new ArrayList<>(nodes.subList(median + 1, nodes.size())), depth + 1);
+        return node;
+    }
+
+    private static double squaredDistance(double[] a, double[] b) {
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        double dz = a[2] - b[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static final class Node {
+        private final GeoPoint point;
+        private final double[] coords;
+        private int axis;
+        private Node left;
+        private Node right;
+
+        private Node(GeoPoint point, double[] coords) {
+            this.point = point;
+            this.coords = coords;
+        }
+    }
+
+    private static final class Search {
+        private final double[] target;
+        private Node best;
+        private double bestDistance = Double.MAX_VALUE;
+
+        private Search(double[] target) {
+            this.target = target;
+        }
+
+        private void visit(Node node) {
+            if (node == null) {
+                return;
+            }
+            double distance = squaredDistance(node.coords, target);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = node;
+            }
+            double diff = target[node.axis] - node.coords[node.axis];
+            Node near = diff < 0 ? node.left : node.right;
+            Node far = diff < 0 ? node.right : node.left;
+            visit(near);
+            if (diff * diff < bestDistance) {
+                visit(far);
+            }
+        }
+    }
+}
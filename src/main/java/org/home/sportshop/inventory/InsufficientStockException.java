@@ -0,0 +1,17 @@
+package org.home.sportshop.inventory;
+
+/**
+ * Недостаточно свободного остатка товара для резервирования
+ */
+public class InsufficientStockException extends RuntimeException {
+    private final Long productId;
+
+    public InsufficientStockException(Long productId, int requested) {
+        super("Недостаточно товара с ID " + productId + " для резервирования " + requested + " шт.");
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
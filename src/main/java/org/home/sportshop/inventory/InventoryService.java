@@ -0,0 +1,349 @@
+package org.home.sportshop.inventory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.home.sportshop.catalog.ProductChangeListener;
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.Product;
+import org.home.sportshop.model.StockReservation;
+import org.home.sportshop.notifications.OrderEvent;
+import org.home.sportshop.notifications.OrderObserver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Складской учет с резервированием под заказы.
+ * Свободный остаток товара (stock минус действующие резервы) хранится в памяти
+ * в полосатом счетчике {@link StripedStockCounter}: резервирование при оформлении заказа
+ * не блокирует строку товара и выдерживает конкуренцию за один товар на распродаже.
+ * В базе каждый резерв - строка stock_reservations в транзакции заказа.
+ * Подтвержденные резервы переносятся в products.stock периодически, одним UPDATE на товар.
+ * Переходы статуса заказа: CANCELLED возвращает товар, любой статус кроме CREATED подтверждает резерв.
+ * Неподтвержденные резервы истекают по TTL. Изменения остатка вне резервирования (правка товара,
+ * импорт, массовое изменение) применяются к счетчику разницей, а не перечитыванием: так не теряются
+ * резервы транзакций, которые еще не зафиксированы и потому не видны в базе.
+ */
+@Service
+public class InventoryService implements OrderObserver, ProductChangeListener {
+    private static final String CREATED = "CREATED";
+    private static final String CANCELLED = "CANCELLED";
+
+    private static final String AVAILABLE_SQL =
+            "SELECT p.stock - COALESCE((SELECT SUM(r.quantity) FROM stock_reservations r WHERE r.product_id = p.id "
+            + "AND (r.status = 'RESERVED' OR (r.status = 'COMMITTED' AND NOT r.applied))), 0) FROM products p WHERE p.id = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO stock_reservations (order_id, product_id, quantity, status, applied, created_at, expires_at) "
+            + "VALUES (?, ?, ?, 'RESERVED', false, ?, ?)";
+    private static final String COMMIT_SQL =
+            "UPDATE stock_reservations SET status = 'COMMITTED' WHERE order_id = ? AND status = 'RESERVED'";
+    private static final String RELEASE_SQL =
+            "UPDATE stock_reservations r SET status = 'RELEASED' FROM "
+            + "(SELECT id, applied AS was_applied FROM stock_reservations "
+            + "WHERE order_id = ? AND status IN ('RESERVED', 'COMMITTED') FOR UPDATE) o "
+            + "WHERE r.id = o.id RETURNING r.product_id, r.quantity, o.was_applied";
+    private static final String RESTOCK_SQL =
+            "UPDATE products SET stock = stock + ?, updated_at = ? WHERE id = ?";
+    private static final String EXPIRE_SQL =
+            "UPDATE stock_reservations SET status = 'EXPIRED' WHERE status = 'RESERVED' AND expires_at < ? "
+            + "RETURNING product_id, quantity";
+    // Списание подтвержденных резервов: отметка и уменьшение остатка в одной инструкции
+    private static final String APPLY_SQL =
+            "WITH applied AS (UPDATE stock_reservations SET applied = true WHERE status = 'COMMITTED' AND NOT applied "
+            + "RETURNING product_id, quantity), "
+            + "totals AS (SELECT product_id, SUM(quantity) AS quantity FROM applied GROUP BY product_id) "
+            + "UPDATE products p SET stock = GREATEST(p.stock - t.quantity, 0), updated_at = ? "
+            + "FROM totals t WHERE p.id = t.product_id RETURNING p.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ProductChangeListener> catalogListeners;
+    private final LoggingService logger = LoggingService.getInstance();
+    private final Map<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+
+    @Value("${inventory.stripes:8}")
+    private int stripes;
+
+    @Value("${inventory.reservation.ttl-minutes:30}")
+    private long reservationTtlMinutes;
+
+    @Autowired
+    public InventoryService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            ObjectProvider<ProductChangeListener> catalogListeners) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.catalogListeners = catalogListeners;
+    }
+
+    /**
+     * Свободный остаток товара с учетом действующих резервов
+     *
+     * @return null, если товара нет
+     */
+    public Integer getAvailable(Long productId) {
+        StripedStockCounter counter = counter(productId);
+        return counter != null ? Math.max(counter.available(), 0) : null;
+    }
+
+    /**
+     * Изменение остатков товаров вне резервирования: разница нового и прежнего stock по ID товара.
+     * Внутри транзакции применяется после ее фиксации. Незагруженные счетчики не трогаются -
+     * они прочитают новый остаток из базы при первом обращении.
+     */
+    public void adjustStock(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Runnable adjustment = () -> deltas.forEach((productId, delta) -> {
+            if (delta != 0) {
+                counters.computeIfPresent(productId, (id, counter) -> {
+                    counter.adjust(delta);
+                    return counter;
+                });
+            }
+        });
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            adjustment.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                adjustment.run();
+            }
+        });
+    }
+
+    /**
+     * Резервирование товаров заказа "все или ничего".
+     * Внутри транзакции резерв в памяти возвращается, если транзакция откатилась.
+     *
+     * @param quantities Количество по ID товара
+     * @throws InsufficientStockException если какого-либо товара недостаточно
+     */
+    public void reserve(Map<Long, Integer> quantities) {
+        List<Runnable> undo = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            StripedStockCounter counter = counter(entry.getKey());
+            int quantity = entry.getValue();
+            if (counter == null || !counter.tryTake(quantity)) {
+                undo.forEach(Runnable::run);
+                logger.logWarning("Недостаточно товара с ID " + entry.getKey() + ": запрошено " + quantity
+                        + ", доступно " + (counter != null ? counter.available() : 0));
+                throw new InsufficientStockException(entry.getKey(), quantity);
+            }
+            // Счетчик не заменяется при изменении остатка, поэтому возврат идет в тот же объект;
+            // если товар удален, старый счетчик просто отбрасывается
+            undo.add(() -> counter.give(quantity));
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        undo.forEach(Runnable::run);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Запись резервов заказа; вызывается в транзакции создания заказа после reserve
+     */
+    public void recordReservations(Long orderId, Map<Long, Integer> quantities) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusMinutes(reservationTtlMinutes);
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> rows.add(new Object[] {orderId, productId, quantity, now, expiresAt}));
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Override
+    public void update(OrderEvent event) {
+        Long orderId = event.getOrder().getId();
+        String newStatus = event.getNewStatus();
+        if (orderId == null || newStatus == null || newStatus.equals(event.getOldStatus())) {
+            return;
+        }
+        if (CANCELLED.equals(newStatus)) {
+            release(orderId);
+        } else if (!CREATED.equals(newStatus)) {
+            commit(orderId);
+        }
+    }
+
+    /**
+     * Подтверждение резервов заказа. Истекшие резервы подтверждаются повторным резервированием,
+     * если товар еще есть.
+     */
+    public void commit(Long orderId) {
+        Integer committed = transactionTemplate.execute(status -> jdbcTemplate.update(COMMIT_SQL, orderId));
+        List<StockReservation> expired = jdbcTemplate.query(
+                "SELECT id, product_id, quantity FROM stock_reservations WHERE order_id = ? AND status = 'EXPIRED'",
+                (rs, rowNum) -> {
+                    StockReservation reservation = new StockReservation();
+                    reservation.setId(rs.getLong("id"));
+                    reservation.setProductId(rs.getLong("product_id"));
+                    reservation.setQuantity(rs.getInt("quantity"));
+                    return reservation;
+                }, orderId);
+        for (StockReservation reservation : expired) {
+            StripedStockCounter counter = counter(reservation.getProductId());
+            if (counter == null || !counter.tryTake(reservation.getQuantity())) {
+                logger.logError("Заказ #" + orderId + ": резерв товара с ID " + reservation.getProductId()
+                        + " истек, а свободного остатка нет - требуется ручная обработка");
+                continue;
+            }
+            Integer updated = transactionTemplate.execute(status -> jdbcTemplate.update(
+                    "UPDATE stock_reservations SET status = 'COMMITTED' WHERE id = ? AND status = 'EXPIRED'", reservation.getId()));
+            if (updated == null || updated == 0) {
+                counter.give(reservation.getQuantity());
+            }
+        }
+        if (committed != null && committed > 0) {
+            logger.logInfo("Заказ #" + orderId + ": подтверждено резервов " + committed);
+        }
+    }
+
+    /**
+     * Возврат товаров заказа: действующие резервы освобождаются, уже списанные единицы
+     * возвращаются в products.stock
+     */
+    public void release(Long orderId) {
+        List<Object[]> released = transactionTemplate.execute(status -> {
+            List<Object[]> rows = jdbcTemplate.query(RELEASE_SQL, (rs, rowNum) -> new Object[] {
+                rs.getLong("product_id"), rs.getInt("quantity"), rs.getBoolean("was_applied")
+            }, orderId);
+            LocalDateTime now = LocalDateTime.now();
+            for (Object[] row : rows) {
+                if ((Boolean) row[2]) {
+                    jdbcTemplate.update(RESTOCK_SQL, row[1], now, row[0]);
+                }
+            }
+            return rows;
+        });
+        if (released == null || released.isEmpty()) {
+            return;
+        }
+        List<Long> restocked = new ArrayList<>();
+        for (Object[] row : released) {
+            giveBack((Long) row[0], (Integer) row[1]);
+            if ((Boolean) row[2]) {
+                restocked.add((Long) row[0]);
+            }
+        }
+        logger.logInfo("Заказ #" + orderId + ": возвращено позиций на склад " + released.size());
+        if (!restocked.isEmpty()) {
+            notifyCatalog(restocked);
+        }
+    }
+
+    /**
+     * Истечение неподтвержденных резервов
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:60000}")
+    public void expireReservations() {
+        try {
+            List<Object[]> expired = transactionTemplate.execute(status -> jdbcTemplate.query(EXPIRE_SQL,
+                    (rs, rowNum) -> new Object[] {rs.getLong("product_id"), rs.getInt("quantity")}, LocalDateTime.now()));
+            if (expired == null || expired.isEmpty()) {
+                return;
+            }
+            for (Object[] row : expired) {
+                giveBack((Long) row[0], (Integer) row[1]);
+            }
+            logger.logInfo("Истекло резервов товаров: " + expired.size());
+        } catch (Exception e) {
+            logger.logError("Ошибка при снятии истекших резервов: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Перенос подтвержденных резервов в products.stock: один UPDATE на товар вместо записи на каждый заказ
+     */
+    @Scheduled(fixedDelayString = "${inventory.flush-interval-ms:5000}")
+    public void applyCommitted() {
+        try {
+            List<Long> products = transactionTemplate.execute(status ->
+                    jdbcTemplate.queryForList(APPLY_SQL, Long.class, LocalDateTime.now()));
+            if (products != null && !products.isEmpty()) {
+                logger.logInfo("Списаны подтвержденные резервы по товарам: " + products.size());
+                notifyCatalog(products);
+            }
+        } catch (Exception e) {
+            logger.logError("Ошибка при списании подтвержденных резервов: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Остаток сохраненного товара приходит разницей через {@link #adjustStock(Map)}
+     */
+    @Override
+    public void onProductSaved(Product product) {
+    }
+
+    @Override
+    public void onProductDeleted(Long productId) {
+        counters.remove(productId);
+    }
+
+    /**
+     * Импорт и массовое изменение передают разницу остатков через {@link #adjustStock(Map)}
+     */
+    @Override
+    public void onCatalogChanged() {
+    }
+
+    /**
+     * Счетчик товара; для несуществующего товара - null, и такой промах не кэшируется.
+     * Запрос остатка выполняется вне карты, чтобы не держать блокировку ее сегмента во время I/O;
+     * при гонке используется счетчик, попавший в карту первым.
+     */
+    private StripedStockCounter counter(Long productId) {
+        StripedStockCounter counter = counters.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        List<Integer> available = jdbcTemplate.queryForList(AVAILABLE_SQL, Integer.class, productId);
+        if (available.isEmpty()) {
+            return null;
+        }
+        StripedStockCounter loaded = new StripedStockCounter(available.get(0) != null ? available.get(0) : 0, stripes);
+        StripedStockCounter existing = counters.putIfAbsent(productId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private void giveBack(Long productId, int quantity) {
+        StripedStockCounter counter = counters.get(productId);
+        if (counter != null) {
+            counter.give(quantity);
+        }
+    }
+
+    /**
+     * Остатки в products изменились без ProductService: остальные слушатели каталога обновляют свои данные
+     */
+    private void notifyCatalog(List<Long> productIds) {
+        catalogListeners.orderedStream()
+                .filter(listener -> listener != this)
+                .forEach(listener -> {
+                    try {
+                        listener.onProductsChanged(productIds);
+                    } catch (Exception e) {
+                        logger.logError("Ошибка слушателя изменений каталога " + listener.getClass().getSimpleName() + ": " + e.getMessage());
+                    }
+                });
+    }
+}
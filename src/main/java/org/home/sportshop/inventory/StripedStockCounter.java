@@ -0,0 +1,120 @@
+package org.home.sportshop.inventory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Свободный остаток товара, разбитый на независимые полосы (шарды).
+ * Резервирование сначала списывает единицы из одной случайной полосы через CAS,
+ * поэтому одновременные покупки одного товара в основном конкурируют за разные ячейки.
+ * Если ни в одной полосе нет нужного количества целиком, оно собирается из нескольких полос
+ * под блокировкой счетчика. Полосы никогда не становятся отрицательными: если остаток уменьшен
+ * ниже уже зарезервированного, недостача хранится отдельно и погашается возвратами.
+ */
+final class StripedStockCounter {
+    private final AtomicInteger[] stripes;
+    private volatile int deficit;
+
+    StripedStockCounter(int available, int stripeCount) {
+        int count = Math.max(stripeCount, 1);
+        this.stripes = new AtomicInteger[count];
+        this.deficit = Math.max(-available, 0);
+        int base = Math.max(available, 0) / count;
+        int remainder = Math.max(available, 0) % count;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new AtomicInteger(base + (i < remainder ? 1 : 0));
+        }
+    }
+
+    boolean tryTake(int quantity) {
+        int start = ThreadLocalRandom.current().nextInt(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            if (tryTakeFrom(stripes[(start + i) % stripes.length], quantity)) {
+                return true;
+            }
+        }
+        return tryTakeAcrossStripes(quantity);
+    }
+
+    /**
+     * Возврат единиц; сначала погашается недостача. Возвраты редки по сравнению с резервированием,
+     * поэтому идут под блокировкой счетчика вместе с {@link #adjust(int)}.
+     */
+    synchronized void give(int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        int paid = Math.min(deficit, quantity);
+        deficit -= paid;
+        if (quantity > paid) {
+            stripes[ThreadLocalRandom.current().nextInt(stripes.length)].addAndGet(quantity - paid);
+        }
+    }
+
+    /**
+     * Изменение остатка на разницу, внесенную вне резервирования (правка товара, импорт).
+     * Уменьшение снимает свободные единицы со всех полос, остаток разницы становится недостачей.
+     */
+    synchronized void adjust(int delta) {
+        if (delta >= 0) {
+            give(delta);
+            return;
+        }
+        int remaining = -delta;
+        for (int i = 0; i < stripes.length && remaining > 0; i++) {
+            AtomicInteger stripe = stripes[i];
+            int current;
+            int part;
+            do {
+                current = stripe.get();
+                part = Math.min(current, remaining);
+            } while (part > 0 && !stripe.compareAndSet(current, current - part));
+            remaining -= Math.max(part, 0);
+        }
+        deficit += remaining;
+    }
+
+    int available() {
+        int sum = -deficit;
+        for (AtomicInteger stripe : stripes) {
+            sum += stripe.get();
+        }
+        return sum;
+    }
+
+    private synchronized boolean tryTakeAcrossStripes(int quantity) {
+        int[] taken = new int[stripes.length];
+        int remaining = quantity;
+        for (int i = 0; i < stripes.length && remaining > 0; i++) {
+            AtomicInteger stripe = stripes[i];
+            int current;
+            int part;
+            do {
+                current = stripe.get();
+                part = Math.min(current, remaining);
+            } while (part > 0 && !stripe.compareAndSet(current, current - part));
+            taken[i] = Math.max(part, 0);
+            remaining -= taken[i];
+        }
+        if (remaining == 0) {
+            return true;
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            if (taken[i] > 0) {
+                stripes[i].addAndGet(taken[i]);
+            }
+        }
+        return false;
+    }
+
+    private static boolean tryTakeFrom(AtomicInteger stripe, int quantity) {
+        int current;
+        do {
+            current = stripe.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!stripe.compareAndSet(current, current - quantity));
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+package org.home.sportshop.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+@Entity
+@Table(name = "delivery_slots", uniqueConstraints = @UniqueConstraint(columnNames = {"delivery_method", "slot_date", "time_window"}))
+public class DeliverySlotUsage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "delivery_method", nullable = false)
+    private String deliveryMethod;
+
+    @Column(name = "slot_date", nullable = false)
+    private LocalDate slotDate;
+
+    @Column(name = "time_window", nullable = false)
+    private String timeWindow;
+
+    @Column(nullable = false)
+    private Integer reserved;
+
+    // Геттеры и сеттеры
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getDeliveryMethod() { return deliveryMethod; }
+    public void setDeliveryMethod(String deliveryMethod) { this.deliveryMethod = deliveryMethod; }
+    public LocalDate getSlotDate() { return slotDate; }
+    public void setSlotDate(LocalDate slotDate) { this.slotDate = slotDate; }
+    public String getTimeWindow() { return timeWindow; }
+    public void setTimeWindow(String timeWindow) { this.timeWindow = timeWindow; }
+    public Integer getReserved() { return reserved; }
+    public void setReserved(Integer reserved) { this.reserved = reserved; }
+}
@@ -4,6 +4,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.hibernate.annotations.BatchSize;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -43,8 +45,13 @@ public class Order {
     
     @Column(name = "delivery_address")
     private String deliveryAddress;
+    
+    @Column(name = "delivery_slot")
+    private String deliverySlot;
 
+    // Позиции страницы заказов загружаются одним запросом IN вместо запроса на каждый заказ
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
+    @BatchSize(size = 100)
     private List<OrderItem> orderItems;
 
     // Геттеры и сеттеры
@@ -66,4 +73,6 @@ public class Order {
     public void setDeliveryMethodId(Long deliveryMethodId) { this.deliveryMethodId = deliveryMethodId; }
     public String getDeliveryAddress() { return deliveryAddress; }
     public void setDeliveryAddress(String deliveryAddress) { this.deliveryAddress = deliveryAddress; }
+    public String getDeliverySlot() { return deliverySlot; }
+    public void setDeliverySlot(String deliverySlot) { this.deliverySlot = deliverySlot; }
 }
\ No newline at end of file
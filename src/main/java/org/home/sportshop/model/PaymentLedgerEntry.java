@@ -0,0 +1,91 @@
+package org.home.sportshop.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Запись журнала платежей. Попытка оплаты открывается строкой PENDING, а ее исход фиксируется
+ * отдельной строкой с тем же (order_id, attempt); поля попытки и статус после вставки не меняются.
+ * Изменяются только поля расчета (settlement_*), которые ежедневная сверка проставляет строке SUCCEEDED.
+ * Уникальность (order_id, attempt, status) не дает параллельным повторам открыть одну попытку дважды;
+ * частичные уникальные индексы из schema.sql допускают один успешный платеж на заказ и один исход на попытку.
+ */
+@Entity
+@Table(name = "payment_ledger",
+       uniqueConstraints = @UniqueConstraint(name = "uk_payment_ledger_order_attempt_status",
+                                             columnNames = {"order_id", "attempt", "status"}),
+       indexes = @Index(name = "idx_payment_ledger_status", columnList = "status, settlement_status"))
+public class PaymentLedgerEntry {
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SUCCEEDED = "SUCCEEDED";
+    public static final String STATUS_FAILED = "FAILED";
+    /** Провайдер не ответил вовремя; попытка ждет сверки */
+    public static final String STATUS_UNKNOWN = "UNKNOWN";
+
+    public static final String SETTLEMENT_SETTLED = "SETTLED";
+    public static final String SETTLEMENT_MISMATCH = "MISMATCH";
+    public static final String SETTLEMENT_REJECTED = "REJECTED";
+    public static final String SETTLEMENT_UNMATCHED = "UNMATCHED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false, updatable = false)
+    private String orderId;
+
+    @Column(nullable = false, updatable = false)
+    private Integer attempt;
+
+    @Column(name = "payment_method", nullable = false, updatable = false)
+    private String paymentMethod;
+
+    @Column(nullable = false, updatable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false, updatable = false)
+    private String status;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "settlement_status")
+    private String settlementStatus;
+
+    @Column(name = "settled_at")
+    private LocalDateTime settledAt;
+
+    @Column(name = "settlement_batch_id")
+    private String settlementBatchId;
+
+    // Геттеры и сеттеры
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getOrderId() { return orderId; }
+    public void setOrderId(String orderId) { this.orderId = orderId; }
+    public Integer getAttempt() { return attempt; }
+    public void setAttempt(Integer attempt) { this.attempt = attempt; }
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public String getSettlementStatus() { return settlementStatus; }
+    public void setSettlementStatus(String settlementStatus) { this.settlementStatus = settlementStatus; }
+    public LocalDateTime getSettledAt() { return settledAt; }
+    public void setSettledAt(LocalDateTime settledAt) { this.settledAt = settledAt; }
+    public String getSettlementBatchId() { return settlementBatchId; }
+    public void setSettlementBatchId(String settlementBatchId) { this.settlementBatchId = settlementBatchId; }
+}
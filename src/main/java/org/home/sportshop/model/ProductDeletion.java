@@ -0,0 +1,44 @@
+package org.home.sportshop.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Журнал удалений товаров (tombstone) для инкрементальной синхронизации каталога
+ */
+@Entity
+@Table(name = "product_deletions", indexes = @Index(name = "idx_product_deletions_deleted_at", columnList = "deleted_at"))
+public class ProductDeletion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    public ProductDeletion() {
+    }
+
+    public ProductDeletion(Long productId, LocalDateTime deletedAt) {
+        this.productId = productId;
+        this.deletedAt = deletedAt;
+    }
+
+    // Геттеры и сеттеры
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+}
@@ -0,0 +1,137 @@
+package org.home.sportshop.model.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Запрос на массовое изменение цен и остатков.
+ * Товары задаются списком ID или фильтром; изменение цены и/или остатка - абсолютное или относительное.
+ */
+public class BulkProductUpdateRequest {
+    private List<Long> ids;
+    private Filter filter;
+    private PriceChange price;
+    private StockChange stock;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public Filter getFilter() {
+        return filter;
+    }
+
+    public void setFilter(Filter filter) {
+        this.filter = filter;
+    }
+
+    public PriceChange getPrice() {
+        return price;
+    }
+
+    public void setPrice(PriceChange price) {
+        this.price = price;
+    }
+
+    public StockChange getStock() {
+        return stock;
+    }
+
+    public void setStock(StockChange stock) {
+        this.stock = stock;
+    }
+
+    /**
+     * Фильтр товаров; незаданные условия не ограничивают выборку
+     */
+    public static class Filter {
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+        private String nameContains;
+        private Boolean inStock;
+
+        public BigDecimal getMinPrice() {
+            return minPrice;
+        }
+
+        public void setMinPrice(BigDecimal minPrice) {
+            this.minPrice = minPrice;
+        }
+
+        public BigDecimal getMaxPrice() {
+            return maxPrice;
+        }
+
+        public void setMaxPrice(BigDecimal maxPrice) {
+            this.maxPrice = maxPrice;
+        }
+
+        public String getNameContains() {
+            return nameContains;
+        }
+
+        public void setNameContains(String nameContains) {
+            this.nameContains = nameContains;
+        }
+
+        public Boolean getInStock() {
+            return inStock;
+        }
+
+        public void setInStock(Boolean inStock) {
+            this.inStock = inStock;
+        }
+    }
+
+    /**
+     * Изменение цены: SET - новая цена, PERCENT - изменение в процентах, DELTA - прибавка к цене
+     */
+    public static class PriceChange {
+        private String mode;
+        private BigDecimal value;
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public BigDecimal getValue() {
+            return value;
+        }
+
+        public void setValue(BigDecimal value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Изменение остатка: SET - новый остаток, DELTA - прибавка к остатку
+     */
+    public static class StockChange {
+        private String mode;
+        private Integer value;
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public Integer getValue() {
+            return value;
+        }
+
+        public void setValue(Integer value) {
+            this.value = value;
+        }
+    }
+}
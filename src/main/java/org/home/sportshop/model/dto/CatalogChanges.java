@@ -0,0 +1,37 @@
+package org.home.sportshop.model.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Порция изменений каталога: измененные товары, ID удаленных товаров
+ * и курсор для следующего запроса
+ */
+public class CatalogChanges {
+    private final List<ProductResponse> products;
+    private final List<Long> deleted;
+    private final LocalDateTime nextSince;
+    private final Long nextAfterId;
+    private final Long nextDeletionsAfter;
+    private final boolean hasMore;
+    private final boolean resetRequired;
+
+    public CatalogChanges(List<ProductResponse> products, List<Long> deleted, LocalDateTime nextSince, Long nextAfterId,
+                          Long nextDeletionsAfter, boolean hasMore, boolean resetRequired) {
+        this.products = products;
+        this.deleted = deleted;
+        this.nextSince = nextSince;
+        this.nextAfterId = nextAfterId;
+        this.nextDeletionsAfter = nextDeletionsAfter;
+        this.hasMore = hasMore;
+        this.resetRequired = resetRequired;
+    }
+
+    public List<ProductResponse> getProducts() { return products; }
+    public List<Long> getDeleted() { return deleted; }
+    public LocalDateTime getNextSince() { return nextSince; }
+    public Long getNextAfterId() { return nextAfterId; }
+    public Long getNextDeletionsAfter() { return nextDeletionsAfter; }
+    public boolean isHasMore() { return hasMore; }
+    public boolean isResetRequired() { return resetRequired; }
+}
@@ -0,0 +1,38 @@
+package org.home.sportshop.model.dto;
+
+import org.home.sportshop.model.Customer;
+
+/**
+ * Краткие данные клиента для поиска, списков и ответов API (без вложенного пользователя)
+ */
+public class CustomerSummary {
+    private final Long id;
+    private final String name;
+    private final String phone;
+    private final String email;
+    private final Long userId;
+
+    public CustomerSummary(Long id, String name, String phone, String email, Long userId) {
+        this.id = id;
+        this.name = name;
+        this.phone = phone;
+        this.email = email;
+        this.userId = userId;
+    }
+
+    public static CustomerSummary fromCustomer(Customer customer) {
+        return new CustomerSummary(
+            customer.getId(),
+            customer.getName(),
+            customer.getPhone(),
+            customer.getEmail(),
+            customer.getUser() != null ? customer.getUser().getId() : null
+        );
+    }
+
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public String getPhone() { return phone; }
+    public String getEmail() { return email; }
+    public Long getUserId() { return userId; }
+}
@@ -0,0 +1,61 @@
+package org.home.sportshop.model.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог массового импорта товаров с построчным отчетом об ошибках.
+ * Число сохраняемых ошибок ограничено, остальные только подсчитываются.
+ */
+public class ImportReport {
+    private final String format;
+    private final int maxErrors;
+    private final List<RowError> errors = new ArrayList<>();
+    private long totalRows;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private long durationMs;
+
+    public ImportReport(String format, int maxErrors) {
+        this.format = format;
+        this.maxErrors = maxErrors;
+    }
+
+    public void addError(long row, String message) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(row, message));
+        }
+    }
+
+    public void countRow() { totalRows++; }
+    public void addInserted(long count) { inserted += count; }
+    public void addUpdated(long count) { updated += count; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+
+    public String getFormat() { return format; }
+    public long getTotalRows() { return totalRows; }
+    public long getInserted() { return inserted; }
+    public long getUpdated() { return updated; }
+    public long getFailed() { return failed; }
+    public long getDurationMs() { return durationMs; }
+    public List<RowError> getErrors() { return errors; }
+    public boolean isErrorsTruncated() { return failed > errors.size(); }
+
+    /**
+     * Ошибка строки: номер строки (записи) файла и причина
+     */
+    public static class RowError {
+        private final long row;
+        private final String message;
+
+        public RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public long getRow() { return row; }
+        public String getMessage() { return message; }
+    }
+}
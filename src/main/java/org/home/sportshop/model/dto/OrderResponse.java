@@ -25,6 +25,7 @@ public class OrderResponse {
     private Long deliveryMethodId;
     private String deliveryMethod;
     private String deliveryAddress;
+    private String deliverySlot;
     private Long paymentMethodId;
     private String paymentMethod;
     
@@ -39,6 +40,13 @@ public class OrderResponse {
     }
     
     public static OrderResponse fromOrder(Order order) {
+        return fromOrder(order, order.getOrderItems());
+    }
+
+    /**
+     * Преобразование с позициями, загруженными отдельно от коллекции заказа (например, при чтении курсором)
+     */
+    public static OrderResponse fromOrder(Order order, List<OrderItem> orderItems) {
         OrderResponse response = new OrderResponse();
         response.setId(order.getId());
         response.setCustomerId(order.getCustomer().getId());
@@ -50,6 +58,7 @@ public class OrderResponse {
         response.setCreatedAt(order.getCreatedAt());
         response.setDeliveryMethodId(order.getDeliveryMethodId());
         response.setDeliveryAddress(order.getDeliveryAddress());
+        response.setDeliverySlot(order.getDeliverySlot());
         response.setPaymentMethodId(order.getPaymentMethodId());
         
         // Set string representations if services are available
@@ -60,7 +69,7 @@ public class OrderResponse {
             response.setPaymentMethod(paymentService.getPaymentMethodCodeById(order.getPaymentMethodId()));
         }
         
-        List<OrderItemDto> items = order.getOrderItems().stream()
+        List<OrderItemDto> items = orderItems.stream()
             .map(OrderItemDto::fromOrderItem)
             .toList();
         response.setOrderItems(items);
@@ -246,6 +255,14 @@ public class OrderResponse {
         this.deliveryAddress = deliveryAddress;
     }
 
+    public String getDeliverySlot() {
+        return deliverySlot;
+    }
+
+    public void setDeliverySlot(String deliverySlot) {
+        this.deliverySlot = deliverySlot;
+    }
+
     public Long getPaymentMethodId() {
         return paymentMethodId;
     }
@@ -0,0 +1,59 @@
+package org.home.sportshop.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.home.sportshop.model.Product;
+
+/**
+ * Товар в ответах API. Списки загружаются сразу в этот класс конструктором в JPQL (select new),
+ * без сущностей в контексте персистентности; одиночный товар - из сущности через fromProduct.
+ */
+public class ProductResponse {
+    private final Long id;
+    private final String name;
+    private final BigDecimal price;
+    private final String description;
+    private final Integer stock;
+    private final Double weight;
+    private final String imageUrl;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+
+    public ProductResponse(Long id, String name, BigDecimal price, String description, Integer stock, Double weight,
+                           String imageUrl, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.description = description;
+        this.stock = stock;
+        this.weight = weight;
+        this.imageUrl = imageUrl;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public static ProductResponse fromProduct(Product product) {
+        return new ProductResponse(
+            product.getId(),
+            product.getName(),
+            product.getPrice(),
+            product.getDescription(),
+            product.getStock(),
+            product.getWeight(),
+            product.getImageUrl(),
+            product.getCreatedAt(),
+            product.getUpdatedAt()
+        );
+    }
+
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public BigDecimal getPrice() { return price; }
+    public String getDescription() { return description; }
+    public Integer getStock() { return stock; }
+    public Double getWeight() { return weight; }
+    public String getImageUrl() { return imageUrl; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
@@ -1,49 +1,228 @@
 package org.home.sportshop.notifications;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.AnalyticsSnapshot;
 import org.home.sportshop.model.Order;
+import org.home.sportshop.repository.AnalyticsSnapshotRepository;
+import org.home.sportshop.repository.OrderItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 /**
- * Конкретная реализация наблюдателя для сбора аналитических данных
+ * Конкретная реализация наблюдателя для сбора аналитических данных.
+ * Агрегирует события в памяти: накопительные счетчики LongAdder по статусам и выручке
+ * и гистограммы за скользящее окно (заказы по статусам, выручка, позиции в заказе,
+ * время выполнения). Таблица заказов при этом не запрашивается; число позиций берется из события,
+ * а если его там нет - отдельным запросом count только для выполненных заказов.
+ * Накопительные счетчики периодически сохраняются в analytics_snapshots
+ * и восстанавливаются из последнего снимка при запуске.
  */
 @Component
 public class AnalyticsNotificationObserver implements OrderObserver {
+    private static final String COMPLETED = "COMPLETED";
+
+    // Границы интервалов гистограмм
+    private static final long[] REVENUE_BOUNDS_KOPECKS = {100_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000};
+    private static final long[] ITEMS_BOUNDS = {1, 2, 3, 5, 10, 20, 50};
+    private static final long[] COMPLETE_MINUTES_BOUNDS = {15, 60, 180, 720, 1440, 4320, 10080};
+
     private final LoggingService logger = LoggingService.getInstance();
-    
+    private final AnalyticsSnapshotRepository snapshotRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ObjectMapper objectMapper;
+    private final int windowMinutes;
+
+    private final ConcurrentHashMap<String, LongAdder> statusTotals = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SlidingWindowHistogram> statusWindows = new ConcurrentHashMap<>();
+    private final LongAdder completedOrders = new LongAdder();
+    private final LongAdder revenueKopecks = new LongAdder();
+    private final LongAdder itemsUnknown = new LongAdder();
+    private final SlidingWindowHistogram revenueWindow;
+    private final SlidingWindowHistogram itemsWindow;
+    private final SlidingWindowHistogram timeToCompleteWindow;
+
+    @Value("${analytics.snapshot.retention-days:7}")
+    private int retentionDays;
+
+    @Autowired
+    public AnalyticsNotificationObserver(AnalyticsSnapshotRepository snapshotRepository,
+                                         OrderItemRepository orderItemRepository, ObjectMapper objectMapper,
+                                         @Value("${analytics.window-minutes:60}") int windowMinutes) {
+        this.snapshotRepository = snapshotRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.objectMapper = objectMapper;
+        this.windowMinutes = windowMinutes;
+        this.revenueWindow = new SlidingWindowHistogram(windowMinutes, REVENUE_BOUNDS_KOPECKS);
+        this.itemsWindow = new SlidingWindowHistogram(windowMinutes, ITEMS_BOUNDS);
+        this.timeToCompleteWindow = new SlidingWindowHistogram(windowMinutes, COMPLETE_MINUTES_BOUNDS);
+    }
+
     @Override
     public void update(OrderEvent event) {
         Order order = event.getOrder();
-        String oldStatus = event.getOldStatus();
         String newStatus = event.getNewStatus();
-        
-        // Сбор аналитических данных о изменении статуса заказа
-        // В реальном приложении здесь была бы логика записи в базу данных или отправки в аналитическую систему
-        
-        if ("IN_WORK".equals(oldStatus) && "COMPLETED".equals(newStatus)) {
-            // Например, расчет времени выполнения заказа
-            LocalDateTime createdAt = order.getCreatedAt();
-            LocalDateTime now = LocalDateTime.now();
-            long minutesTaken = ChronoUnit.MINUTES.between(createdAt, now);
-            
+
+        statusTotals.computeIfAbsent(newStatus, s -> new LongAdder()).increment();
+        statusWindows.computeIfAbsent(newStatus, s -> new SlidingWindowHistogram(windowMinutes)).record(1);
+
+        if (!COMPLETED.equals(newStatus) || COMPLETED.equals(event.getOldStatus())) {
+            return;
+        }
+
+        completedOrders.increment();
+        if (order.getTotalPrice() != null) {
+            long kopecks = order.getTotalPrice().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            revenueKopecks.add(kopecks);
+            revenueWindow.record(kopecks);
+        }
+
+        Integer items = itemCount(event);
+        if (items != null) {
+            itemsWindow.record(items);
+        } else {
+            itemsUnknown.increment();
+        }
+
+        if (order.getCreatedAt() != null) {
+            long minutesTaken = Math.max(Duration.between(order.getCreatedAt(), LocalDateTime.now()).toMinutes(), 0);
+            timeToCompleteWindow.record(minutesTaken);
             logger.logInfo(String.format(
                 "ANALYTICS: Заказ #%d выполнен за %d минут. Итоговая сумма: %s руб.",
                 order.getId(),
                 minutesTaken,
                 order.getTotalPrice()
             ));
-        } else if ("COMPLETED".equals(newStatus)) {
-            logger.logInfo(String.format(
-                "ANALYTICS: Заказ #%d изменил статус на '%s'. " +
-                "Количество товаров: %d, сумма: %s руб.",
-                order.getId(),
-                newStatus,
-                order.getOrderItems().size(),
-                order.getTotalPrice()
-            ));
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Количество позиций без ленивой загрузки коллекции на пути уведомления
+     */
+    private Integer itemCount(OrderEvent event) {
+        if (event.getItemCount() != null) {
+            return event.getItemCount();
+        }
+        Long orderId = event.getOrder().getId();
+        if (orderId == null) {
+            return null;
+        }
+        try {
+            return (int) orderItemRepository.countByOrderId(orderId);
+        } catch (Exception e) {
+            logger.logWarning("ANALYTICS: не удалось получить число позиций заказа #" + orderId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Текущие значения: накопительные счетчики и гистограммы за окно
+     */
+    public Map<String, Object> getSnapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("capturedAt", LocalDateTime.now().toString());
+        snapshot.put("totals", getTotals());
+
+        Map<String, Object> window = new LinkedHashMap<>();
+        Map<String, Object> ordersByStatus = new TreeMap<>();
+        statusWindows.forEach((status, histogram) -> ordersByStatus.put(status, histogram.snapshot().get("count")));
+        window.put("windowMinutes", windowMinutes);
+        window.put("ordersByStatus", ordersByStatus);
+        window.put("revenueKopecks", revenueWindow.snapshot());
+        window.put("itemsPerOrder", itemsWindow.snapshot());
+        window.put("timeToCompleteMinutes", timeToCompleteWindow.snapshot());
+        snapshot.put("window", window);
+        return snapshot;
+    }
+
+    private Map<String, Object> getTotals() {
+        Map<String, Long> byStatus = new TreeMap<>();
+        statusTotals.forEach((status, counter) -> byStatus.put(status, counter.sum()));
+
+        long revenue = revenueKopecks.sum();
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("ordersByStatus", byStatus);
+        totals.put("completedOrders", completedOrders.sum());
+        totals.put("revenueKopecks", revenue);
+        totals.put("revenue", BigDecimal.valueOf(revenue, 2));
+        totals.put("itemsUnknown", itemsUnknown.sum());
+        return totals;
+    }
+
+    /**
+     * Периодическое сохранение снимка агрегатов
+     */
+    @Scheduled(fixedDelayString = "${analytics.snapshot.interval-ms:60000}",
+               initialDelayString = "${analytics.snapshot.interval-ms:60000}")
+    public void persistSnapshot() {
+        try {
+            AnalyticsSnapshot snapshot = new AnalyticsSnapshot();
+            snapshot.setCapturedAt(LocalDateTime.now());
+            snapshot.setPayload(objectMapper.writeValueAsString(getSnapshot()));
+            snapshotRepository.save(snapshot);
+            snapshotRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        } catch (Exception e) {
+            logger.logError("ANALYTICS: не удалось сохранить снимок аналитики: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Восстановление накопительных счетчиков из последнего снимка
+     */
+    @PostConstruct
+    public void restore() {
+        try {
+            snapshotRepository.findTopByOrderByCapturedAtDesc().ifPresent(snapshot -> {
+                try {
+                    Map<String, Object> payload = objectMapper.readValue(snapshot.getPayload(),
+                            new TypeReference<Map<String, Object>>() {});
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> totals = (Map<String, Object>) payload.get("totals");
+                    if (totals == null) {
+                        return;
+                    }
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> byStatus = (Map<String, Object>) totals.get("ordersByStatus");
+                    if (byStatus != null) {
+                        byStatus.forEach((status, value) ->
+                                statusTotals.computeIfAbsent(status, s -> new LongAdder()).add(asLong(value)));
+                    }
+                    completedOrders.add(asLong(totals.get("completedOrders")));
+                    revenueKopecks.add(asLong(totals.get("revenueKopecks")));
+                    itemsUnknown.add(asLong(totals.get("itemsUnknown")));
+                    logger.logInfo("ANALYTICS: счетчики восстановлены из снимка от " + snapshot.getCapturedAt());
+                } catch (Exception e) {
+                    logger.logWarning("ANALYTICS: снимок аналитики не прочитан: " + e.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            logger.logWarning("ANALYTICS: не удалось загрузить снимок аналитики: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persistSnapshot();
+    }
+
+    private static long asLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -1,24 +1,60 @@
 package org.home.sportshop.notifications;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.Customer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PreDestroy;
+
 /**
- * Конкретная реализация наблюдателя для отправки email-уведомлений
+ * Конкретная реализация наблюдателя для отправки email-уведомлений.
+ * События пакетируются и отправляются провайдеру одним вызовом на окно.
  */
 @Component
 public class EmailNotificationObserver implements OrderObserver {
     private final LoggingService logger = LoggingService.getInstance();
+    private final EmailSender emailSender;
+    private final NotificationBatcher batcher;
+    
+    @Autowired
+    public EmailNotificationObserver(EmailSender emailSender,
+                                     @Value("${notifications.batch.window-ms:500}") long windowMs,
+                                     @Value("${notifications.batch.max-size:100}") int maxSize) {
+        this.emailSender = emailSender;
+        this.batcher = new NotificationBatcher("email", windowMs, maxSize, this::sendBatch);
+    }
     
     @Override
     public void update(OrderEvent event) {
-        // Здесь должна быть реальная логика отправки email
-        logger.logInfo(String.format(
-            "EMAIL NOTIFICATION: Заказ #%d изменил статус на '%s'",
-            event.getOrder().getId(), 
-            event.getNewStatus()
-        ));
+        // Адрес извлекается сразу, пока заказ привязан к текущей сессии
+        Customer customer = event.getOrder().getCustomer();
+        String email = customer != null ? customer.getEmail() : null;
+        if (email == null || email.isBlank()) {
+            logger.logWarning("EMAIL NOTIFICATION: у клиента заказа #" + event.getOrder().getId() + " не указан email");
+            return;
+        }
+        batcher.enqueue(event.getOrder().getId(), email, event.getOldStatus(), event.getNewStatus());
+    }
+    
+    private void sendBatch(List<NotificationBatcher.PendingNotification> batch) {
+        List<NotificationMessage> messages = batch.stream()
+            .map(n -> new NotificationMessage(
+                n.getRecipient(),
+                String.format("Заказ #%d: статус '%s'", n.getOrderId(), n.getNewStatus()),
+                String.format("Заказ #%d изменил статус с '%s' на '%s'", n.getOrderId(), n.getOldStatus(), n.getNewStatus())))
+            .collect(Collectors.toList());
         
-        // sendEmail(event.getOrder().getCustomer().getEmail(), ...);
+        logger.logInfo("EMAIL NOTIFICATION: отправка пакета из " + messages.size() + " писем");
+        emailSender.sendBulk(messages);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        batcher.shutdown();
     }
-} 
\ No newline at end of file
+}
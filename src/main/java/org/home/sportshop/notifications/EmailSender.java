@@ -0,0 +1,10 @@
+package org.home.sportshop.notifications;
+
+import java.util.List;
+
+/**
+ * Интерфейс провайдера рассылки email: один вызов на пакет сообщений
+ */
+public interface EmailSender {
+    void sendBulk(List<NotificationMessage> messages);
+}
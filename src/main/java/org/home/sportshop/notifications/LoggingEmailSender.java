@@ -0,0 +1,36 @@
+package org.home.sportshop.notifications;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.home.sportshop.logging.LoggingService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Локальная заглушка провайдера email: пишет пакет в лог и считает вызовы и сообщения.
+ * Используется, пока не подключен реальный провайдер.
+ */
+@Component
+public class LoggingEmailSender implements EmailSender {
+    private final LoggingService logger = LoggingService.getInstance();
+    private final AtomicLong bulkRequests = new AtomicLong();
+    private final AtomicLong sentMessages = new AtomicLong();
+
+    @Override
+    public void sendBulk(List<NotificationMessage> messages) {
+        bulkRequests.incrementAndGet();
+        sentMessages.addAndGet(messages.size());
+        logger.logInfo("EMAIL PROVIDER: пакетная отправка " + messages.size() + " сообщений");
+        for (NotificationMessage message : messages) {
+            logger.logInfo("EMAIL PROVIDER: " + message.getRecipient() + ": " + message.getText());
+        }
+    }
+
+    public long getBulkRequests() {
+        return bulkRequests.get();
+    }
+
+    public long getSentMessages() {
+        return sentMessages.get();
+    }
+}
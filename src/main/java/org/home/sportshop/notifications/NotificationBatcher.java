@@ -0,0 +1,197 @@
+package org.home.sportshop.notifications;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.home.sportshop.logging.LoggingService;
+
+/**
+ * Пакетирование уведомлений о заказах перед отправкой провайдеру.
+ * События накапливаются в окне (по времени от первого события или до достижения
+ * максимального размера), несколько смен статуса одного заказа в окне сворачиваются
+ * в одно уведомление (исходный статус - первый, новый - последний),
+ * после чего весь пакет отправляется одним вызовом в отдельном потоке.
+ * Если за окно заказ вернулся в исходный статус, уведомление не отправляется.
+ * После остановки события не накапливаются, а отправляются сразу в вызывающем потоке.
+ */
+public class NotificationBatcher {
+    private final String name;
+    private final long windowMs;
+    private final int maxSize;
+    private final Consumer<List<PendingNotification>> sink;
+    private final ScheduledExecutorService scheduler;
+    private final LoggingService logger = LoggingService.getInstance();
+
+    private final Object lock = new Object();
+    private Map<Long, PendingNotification> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    public NotificationBatcher(String name, long windowMs, int maxSize, Consumer<List<PendingNotification>> sink) {
+        this.name = name;
+        this.windowMs = windowMs;
+        this.maxSize = Math.max(maxSize, 1);
+        this.sink = sink;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-batch-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Добавить смену статуса заказа в текущее окно
+     */
+    public void enqueue(Long orderId, String recipient, String oldStatus, String newStatus) {
+        List<PendingNotification> ready = null;
+        synchronized (lock) {
+            if (closed) {
+                PendingNotification notification = new PendingNotification(orderId, recipient, oldStatus, newStatus);
+                ready = notification.isUnchanged() ? List.of() : List.of(notification);
+            } else {
+                PendingNotification existing = pending.get(orderId);
+                if (existing != null) {
+                    existing.coalesce(recipient, newStatus);
+                } else {
+                    pending.put(orderId, new PendingNotification(orderId, recipient, oldStatus, newStatus));
+                }
+
+                if (pending.size() >= maxSize) {
+                    ready = drain();
+                } else if (scheduledFlush == null) {
+                    scheduledFlush = scheduler.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        if (ready != null) {
+            sendAsync(ready);
+        }
+    }
+
+    /**
+     * Немедленно отправить накопленные уведомления
+     */
+    public void flush() {
+        List<PendingNotification> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        send(batch);
+    }
+
+    /**
+     * Отправить остаток и остановить поток пакетирования
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            closed = true;
+            // Остаток отправляется ниже, ждать окончания окна не нужно
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    private List<PendingNotification> drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        List<PendingNotification> batch = new ArrayList<>(pending.size());
+        for (PendingNotification notification : pending.values()) {
+            if (!notification.isUnchanged()) {
+                batch.add(notification);
+            }
+        }
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void sendAsync(List<PendingNotification> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            scheduler.execute(() -> send(batch));
+        } catch (RejectedExecutionException e) {
+            // Поток пакетирования уже остановлен - отправляем в вызывающем потоке
+            send(batch);
+        }
+    }
+
+    private void send(List<PendingNotification> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            sink.accept(batch);
+        } catch (Exception e) {
+            logger.logError("Ошибка пакетной отправки уведомлений " + name + " (" + batch.size() + " шт.): " + e.getMessage());
+        }
+    }
+
+    /**
+     * Уведомление об изменении статуса заказа, ожидающее отправки
+     */
+    public static class PendingNotification {
+        private final Long orderId;
+        private String recipient;
+        private final String oldStatus;
+        private String newStatus;
+        private int coalescedEvents = 1;
+
+        PendingNotification(Long orderId, String recipient, String oldStatus, String newStatus) {
+            this.orderId = orderId;
+            this.recipient = recipient;
+            this.oldStatus = oldStatus;
+            this.newStatus = newStatus;
+        }
+
+        private void coalesce(String recipient, String newStatus) {
+            if (recipient != null) {
+                this.recipient = recipient;
+            }
+            this.newStatus = newStatus;
+            this.coalescedEvents++;
+        }
+
+        /**
+         * Заказ вернулся в исходный статус (например, A -> B -> A)
+         */
+        boolean isUnchanged() {
+            return Objects.equals(oldStatus, newStatus);
+        }
+
+        public Long getOrderId() { return orderId; }
+        public String getRecipient() { return recipient; }
+        public String getOldStatus() { return oldStatus; }
+        public String getNewStatus() { return newStatus; }
+        public int getCoalescedEvents() { return coalescedEvents; }
+    }
+}
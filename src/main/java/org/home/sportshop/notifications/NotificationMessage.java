@@ -0,0 +1,20 @@
+package org.home.sportshop.notifications;
+
+/**
+ * Готовое к отправке сообщение (email или SMS)
+ */
+public class NotificationMessage {
+    private final String recipient;
+    private final String subject;
+    private final String text;
+
+    public NotificationMessage(String recipient, String subject, String text) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.text = text;
+    }
+
+    public String getRecipient() { return recipient; }
+    public String getSubject() { return subject; }
+    public String getText() { return text; }
+}
@@ -10,11 +10,20 @@ public class OrderEvent {
     private final Order order;
     private final String oldStatus;
     private final String newStatus;
+    private final Integer itemCount;
     
     public OrderEvent(Order order, String oldStatus, String newStatus) {
+        this(order, oldStatus, newStatus, null);
+    }
+    
+    /**
+     * @param itemCount Количество позиций заказа, если оно известно при публикации события (иначе null)
+     */
+    public OrderEvent(Order order, String oldStatus, String newStatus, Integer itemCount) {
         this.order = order;
         this.oldStatus = oldStatus;
         this.newStatus = newStatus;
+        this.itemCount = itemCount;
     }
 
     public Order getOrder() {
@@ -28,4 +37,8 @@ public class OrderEvent {
     public String getNewStatus() {
         return newStatus;
     }
+
+    public Integer getItemCount() {
+        return itemCount;
+    }
 } 
\ No newline at end of file
@@ -3,6 +3,7 @@ package org.home.sportshop.notifications;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.Hibernate;
 import org.home.sportshop.logging.LoggingService;
 import org.home.sportshop.model.Order;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -66,7 +67,11 @@ public class OrderNotificationService {
             return;
         }
         
-        OrderEvent event = new OrderEvent(order, oldStatus, newStatus);
+        // Позиции уже загружены вместе с заказом - их число передается в событии без дополнительного запроса
+        Integer itemCount = order.getOrderItems() != null && Hibernate.isInitialized(order.getOrderItems())
+            ? order.getOrderItems().size()
+            : null;
+        OrderEvent event = new OrderEvent(order, oldStatus, newStatus, itemCount);
         
         logger.logInfo("Уведомление " + observers.size() + " наблюдателей об изменении статуса заказа #" + order.getId());
         for (OrderObserver observer : observers) {
@@ -33,6 +33,9 @@ public class OrderObserverConfig {
             logger.logInfo("   2) SMSNotificationObserver - отправляет SMS-уведомления");
             logger.logInfo("   3) AdminNotificationObserver - уведомляет администраторов системы");
             logger.logInfo("   4) AnalyticsNotificationObserver - собирает аналитику по заказам");
+            logger.logInfo("   5) OrderStreamObserver - передает изменения статусов подключенным клиентам (SSE)");
+            logger.logInfo("   6) UserOrdersCache - сбрасывает кэш списка заказов пользователя");
+            logger.logInfo("   7) InventoryService - подтверждает резервы остатков или возвращает их при отмене заказа");
         };
     }
 } 
\ No newline at end of file
@@ -0,0 +1,195 @@
+package org.home.sportshop.notifications;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.Customer;
+import org.home.sportshop.model.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Наблюдатель, передающий изменения статусов заказов подключенным клиентам по SSE.
+ * Подключения индексируются по ID пользователя; соединения держатся в асинхронном
+ * режиме сервлета и не занимают поток на клиента. Отправка событий и heartbeat выполняется
+ * отдельным пулом с ограниченной очередью, чтобы медленный клиент не задерживал ни изменение
+ * статуса заказа, ни общий планировщик; при переполнении очереди отправка пропускается.
+ */
+@Component
+public class OrderStreamObserver implements OrderObserver {
+    // Число подключений в одной задаче heartbeat
+    private static final int HEARTBEAT_CHUNK_SIZE = 200;
+
+    private final LoggingService logger = LoggingService.getInstance();
+    private final Map<Long, Set<SseEmitter>> emittersByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService sender;
+
+    @Value("${orders.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${orders.stream.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    public OrderStreamObserver(@Value("${orders.stream.sender-threads:2}") int senderThreads,
+                               @Value("${orders.stream.sender-queue-capacity:10000}") int senderQueueCapacity) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        int threads = Math.max(senderThreads, 1);
+        this.sender = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(senderQueueCapacity, 1)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-stream-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Подключение клиента к потоку событий своих заказов
+     *
+     * @throws IllegalStateException если превышено число подключений пользователя
+     */
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        boolean[] accepted = {false};
+        emittersByUser.compute(userId, (id, emitters) -> {
+            Set<SseEmitter> userEmitters = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            if (userEmitters.size() < maxConnectionsPerUser) {
+                userEmitters.add(emitter);
+                connections.incrementAndGet();
+                accepted[0] = true;
+            }
+            return userEmitters.isEmpty() ? null : userEmitters;
+        });
+        if (!accepted[0]) {
+            throw new IllegalStateException("Превышено число подключений к потоку заказов: " + maxConnectionsPerUser);
+        }
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(e -> remove(userId, emitter));
+
+        try {
+            emitter.send(SseEmitter.event().name("connected").data(Map.of("userId", userId)));
+        } catch (IOException e) {
+            remove(userId, emitter);
+            emitter.completeWithError(e);
+        }
+        logger.logInfo("SSE: пользователь " + userId + " подключен к потоку заказов, всего подключений: " + connections.get());
+        return emitter;
+    }
+
+    @Override
+    public void update(OrderEvent event) {
+        Order order = event.getOrder();
+        Customer customer = order.getCustomer();
+        if (customer == null || customer.getUser() == null) {
+            return;
+        }
+        Long userId = customer.getUser().getId();
+        Set<SseEmitter> emitters = emittersByUser.get(userId);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+
+        // Данные события собираются в потоке уведомления, пока заказ привязан к сессии
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("oldStatus", event.getOldStatus());
+        payload.put("newStatus", event.getNewStatus());
+        payload.put("totalPrice", order.getTotalPrice());
+        payload.put("changedAt", LocalDateTime.now().toString());
+
+        try {
+            sender.execute(() -> {
+                for (SseEmitter emitter : emitters) {
+                    try {
+                        emitter.send(SseEmitter.event().name("order-status").id(String.valueOf(order.getId())).data(payload));
+                    } catch (IOException | IllegalStateException e) {
+                        remove(userId, emitter);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.logWarning("SSE: очередь отправки переполнена, событие заказа #" + order.getId() + " не отправлено");
+        }
+    }
+
+    /**
+     * Периодический комментарий, чтобы прокси и балансировщики не закрывали простаивающие соединения.
+     * Поток планировщика только раскладывает подключения на задачи; запись в сокеты идет в пуле отправки.
+     */
+    @Scheduled(fixedDelayString = "${orders.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        List<Map.Entry<Long, SseEmitter>> chunk = new ArrayList<>(HEARTBEAT_CHUNK_SIZE);
+        for (Map.Entry<Long, Set<SseEmitter>> entry : emittersByUser.entrySet()) {
+            for (SseEmitter emitter : entry.getValue()) {
+                chunk.add(Map.entry(entry.getKey(), emitter));
+                if (chunk.size() == HEARTBEAT_CHUNK_SIZE) {
+                    if (!submitHeartbeat(chunk)) {
+                        return;
+                    }
+                    chunk = new ArrayList<>(HEARTBEAT_CHUNK_SIZE);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            submitHeartbeat(chunk);
+        }
+    }
+
+    public int getConnectionsCount() {
+        return connections.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        emittersByUser.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        emittersByUser.clear();
+    }
+
+    private boolean submitHeartbeat(List<Map.Entry<Long, SseEmitter>> chunk) {
+        try {
+            sender.execute(() -> {
+                for (Map.Entry<Long, SseEmitter> entry : chunk) {
+                    try {
+                        entry.getValue().send(SseEmitter.event().comment("heartbeat"));
+                    } catch (IOException | IllegalStateException e) {
+                        remove(entry.getKey(), entry.getValue());
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.logWarning("SSE: очередь отправки переполнена, heartbeat пропущен");
+            return false;
+        }
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        emittersByUser.computeIfPresent(userId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
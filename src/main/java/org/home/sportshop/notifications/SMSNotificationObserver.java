@@ -1,34 +1,67 @@
 package org.home.sportshop.notifications;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.Customer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PreDestroy;
+
 /**
- * Конкретная реализация наблюдателя для отправки SMS-уведомлений
+ * Конкретная реализация наблюдателя для отправки SMS-уведомлений.
+ * События пакетируются и отправляются провайдеру одним вызовом на окно.
  */
 @Component
 public class SMSNotificationObserver implements OrderObserver {
     private final LoggingService logger = LoggingService.getInstance();
+    private final SmsSender smsSender;
+    private final NotificationBatcher batcher;
+    
+    @Autowired
+    public SMSNotificationObserver(SmsSender smsSender,
+                                   @Value("${notifications.batch.window-ms:500}") long windowMs,
+                                   @Value("${notifications.batch.max-size:100}") int maxSize) {
+        this.smsSender = smsSender;
+        this.batcher = new NotificationBatcher("sms", windowMs, maxSize, this::sendBatch);
+    }
     
     @Override
     public void update(OrderEvent event) {
-        // Здесь бы была реальная логика отправки SMS
-        String phoneNumber = event.getOrder().getCustomer().getPhone();
-        String message = generateMessage(event);
+        // Номер извлекается сразу, пока заказ привязан к текущей сессии
+        Customer customer = event.getOrder().getCustomer();
+        String phoneNumber = customer != null ? customer.getPhone() : null;
+        if (phoneNumber == null || phoneNumber.isBlank()) {
+            logger.logWarning("SMS NOTIFICATION: у клиента заказа #" + event.getOrder().getId() + " не указан телефон");
+            return;
+        }
+        batcher.enqueue(event.getOrder().getId(), phoneNumber, event.getOldStatus(), event.getNewStatus());
+    }
+    
+    private void sendBatch(List<NotificationBatcher.PendingNotification> batch) {
+        List<NotificationMessage> messages = batch.stream()
+            .map(n -> new NotificationMessage(n.getRecipient(), null, generateMessage(n)))
+            .collect(Collectors.toList());
         
-        logger.logInfo(String.format(
-            "SMS NOTIFICATION: Отправка SMS на номер %s: %s",
-            phoneNumber, message
-        ));
+        logger.logInfo("SMS NOTIFICATION: отправка пакета из " + messages.size() + " SMS");
+        smsSender.sendBulk(messages);
     }
     
-    private String generateMessage(OrderEvent event) {
+    private String generateMessage(NotificationBatcher.PendingNotification notification) {
         return String.format(
             "Уважаемый клиент! Статус вашего заказа #%d изменен с '%s' на '%s'. " +
             "С уважением, Sport Shop.",
-            event.getOrder().getId(),
-            event.getOldStatus(),
-            event.getNewStatus()
+            notification.getOrderId(),
+            notification.getOldStatus(),
+            notification.getNewStatus()
         );
     }
-} 
\ No newline at end of file
+    
+    @PreDestroy
+    public void shutdown() {
+        batcher.shutdown();
+    }
+}
@@ -0,0 +1,134 @@
+package org.home.sportshop.notifications;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма за скользящее окно: кольцо минутных корзин со счетчиками LongAdder.
+ * Запись не блокирует потоки; корзина, отставшая на полный оборот кольца,
+ * обнуляется первым записывающим потоком (значения, записанные в момент
+ * поворота корзины, могут быть потеряны - для аналитики это допустимо).
+ */
+public class SlidingWindowHistogram {
+    private static final long BUCKET_MS = 60_000;
+
+    private final long[] bounds;
+    private final Bucket[] ring;
+
+    /**
+     * @param windowMinutes Длина окна в минутах
+     * @param bounds Верхние границы интервалов (включительно), по возрастанию; может быть пустым
+     */
+    public SlidingWindowHistogram(int windowMinutes, long... bounds) {
+        this.bounds = bounds.clone();
+        this.ring = new Bucket[Math.max(windowMinutes, 1)];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = new Bucket(bounds.length + 1);
+        }
+    }
+
+    public void record(long value) {
+        long minute = System.currentTimeMillis() / BUCKET_MS;
+        Bucket bucket = ring[(int) (minute % ring.length)];
+        long seen = bucket.minute.get();
+        if (seen != minute && bucket.minute.compareAndSet(seen, minute)) {
+            bucket.reset();
+        }
+        bucket.count.increment();
+        bucket.sum.add(value);
+        bucket.bins[binIndex(value)].increment();
+    }
+
+    /**
+     * Сводка за окно: количество, сумма, среднее, распределение по интервалам и оценки перцентилей
+     */
+    public Map<String, Object> snapshot() {
+        long currentMinute = System.currentTimeMillis() / BUCKET_MS;
+        long count = 0;
+        long sum = 0;
+        long[] bins = new long[bounds.length + 1];
+        for (Bucket bucket : ring) {
+            long minute = bucket.minute.get();
+            if (minute < 0 || currentMinute - minute >= ring.length) {
+                continue;
+            }
+            count += bucket.count.sum();
+            sum += bucket.sum.sum();
+            for (int i = 0; i < bins.length; i++) {
+                bins[i] += bucket.bins[i].sum();
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("windowMinutes", ring.length);
+        result.put("count", count);
+        result.put("sum", sum);
+        result.put("avg", count > 0 ? (double) sum / count : 0.0);
+        if (bounds.length > 0) {
+            List<Map<String, Object>> distribution = new ArrayList<>();
+            for (int i = 0; i < bins.length; i++) {
+                Map<String, Object> bin = new LinkedHashMap<>();
+                bin.put("le", i < bounds.length ? String.valueOf(bounds[i]) : "+Inf");
+                bin.put("count", bins[i]);
+                distribution.add(bin);
+            }
+            result.put("distribution", distribution);
+            result.put("p50", percentile(bins, count, 0.50));
+            result.put("p95", percentile(bins, count, 0.95));
+        }
+        return result;
+    }
+
+    private int binIndex(long value) {
+        for (int i = 0; i < bounds.length; i++) {
+            if (value <= bounds[i]) {
+                return i;
+            }
+        }
+        return bounds.length;
+    }
+
+    /**
+     * Оценка перцентиля как верхней границы интервала, в который он попадает
+     */
+    private String percentile(long[] bins, long count, double quantile) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = (long) Math.ceil(count * quantile);
+        long cumulative = 0;
+        for (int i = 0; i < bins.length; i++) {
+            cumulative += bins[i];
+            if (cumulative >= rank) {
+                return i < bounds.length ? String.valueOf(bounds[i]) : "+Inf";
+            }
+        }
+        return "+Inf";
+    }
+
+    private static final class Bucket {
+        private final AtomicLong minute = new AtomicLong(-1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAdder[] bins;
+
+        private Bucket(int binCount) {
+            bins = new LongAdder[binCount];
+            for (int i = 0; i < binCount; i++) {
+                bins[i] = new LongAdder();
+            }
+        }
+
+        private void reset() {
+            count.reset();
+            sum.reset();
+            for (LongAdder bin : bins) {
+                bin.reset();
+            }
+        }
+    }
+}
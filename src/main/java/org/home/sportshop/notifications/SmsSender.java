@@ -0,0 +1,10 @@
+package org.home.sportshop.notifications;
+
+import java.util.List;
+
+/**
+ * Интерфейс SMS-провайдера: один вызов на пакет сообщений
+ */
+public interface SmsSender {
+    void sendBulk(List<NotificationMessage> messages);
+}
@@ -0,0 +1,151 @@
+package org.home.sportshop.payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.home.sportshop.logging.LoggingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Асинхронная обработка платежей: запрос принимается сразу,
+ * а обращение к шлюзу выполняется в отдельном пуле каждого метода оплаты из per-method-concurrency потоков.
+ * Медленный метод занимает только свои потоки, платежи остальных методов не ждут в его очереди;
+ * общее число принятых и незавершенных платежей ограничено max-in-flight.
+ */
+@Service
+public class AsyncPaymentProcessor {
+    private final PaymentService paymentService;
+    private final LoggingService logger = LoggingService.getInstance();
+    private final Map<String, PaymentStatus> payments = new ConcurrentHashMap<>();
+    private final Map<String, ExecutorService> methodExecutors = new ConcurrentHashMap<>();
+
+    @Value("${payment.async.max-in-flight:1000}")
+    private int maxInFlight;
+
+    @Value("${payment.async.per-method-concurrency:8}")
+    private int perMethodConcurrency;
+
+    @Value("${payment.async.status-ttl-minutes:60}")
+    private long statusTtlMinutes;
+
+    private Semaphore inFlight;
+
+    @Autowired
+    public AsyncPaymentProcessor(PaymentService paymentService) {
+        this.paymentService = paymentService;
+    }
+
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Принять платеж к асинхронной обработке
+     *
+     * @return Состояние платежа с присвоенным ID
+     * @throws IllegalArgumentException если метод оплаты неизвестен
+     * @throws RejectedExecutionException если очередь обработки переполнена
+     */
+    public PaymentStatus submit(String paymentMethod, String orderId, BigDecimal amount) {
+        if (!paymentService.isPaymentMethodAvailable(paymentMethod)) {
+            throw new IllegalArgumentException("Неизвестный метод оплаты: " + paymentMethod);
+        }
+        if (!inFlight.tryAcquire()) {
+            logger.logWarning("Очередь асинхронных платежей переполнена, платеж по заказу " + orderId + " отклонен");
+            throw new RejectedExecutionException("Очередь обработки платежей переполнена");
+        }
+
+        PaymentStatus status = new PaymentStatus(UUID.randomUUID().toString(), orderId, paymentMethod, amount);
+        payments.put(status.getPaymentId(), status);
+        try {
+            methodExecutors.computeIfAbsent(paymentMethod, this::createExecutor).execute(() -> process(status));
+        } catch (RejectedExecutionException e) {
+            payments.remove(status.getPaymentId());
+            inFlight.release();
+            throw e;
+        }
+        logger.logInfo("Платеж " + status.getPaymentId() + " по заказу " + orderId + " принят к асинхронной обработке");
+        return status;
+    }
+
+    /**
+     * Получить состояние платежа по его ID
+     */
+    public PaymentStatus getStatus(String paymentId) {
+        return payments.get(paymentId);
+    }
+
+    /**
+     * Удаление завершенных платежей старше заданного срока
+     */
+    @Scheduled(fixedDelayString = "${payment.async.cleanup-interval-ms:60000}")
+    public void evictCompleted() {
+        LocalDateTime threshold = LocalDateTime.now().minusMinutes(statusTtlMinutes);
+        payments.values().removeIf(status -> status.isCompleted() && status.getCompletedAt().isBefore(threshold));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        methodExecutors.values().forEach(ExecutorService::shutdown);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        for (ExecutorService executor : methodExecutors.values()) {
+            if (!executor.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+                logger.logWarning("Не все асинхронные платежи завершены до остановки приложения");
+                return;
+            }
+        }
+    }
+
+    private void process(PaymentStatus status) {
+        try {
+            status.markProcessing();
+            boolean success = paymentService.processPayment(status.getPaymentMethod(), status.getOrderId(), status.getAmount());
+            status.complete(success, success ? "Платеж успешно обработан" : "Ошибка обработки платежа");
+        } catch (PaymentOutcomeUnknownException e) {
+            status.complete(PaymentStatus.State.UNKNOWN, e.getMessage());
+        } catch (IllegalStateException | RejectedExecutionException e) {
+            status.complete(false, e.getMessage());
+        } catch (Exception e) {
+            logger.logError("Ошибка при асинхронной обработке платежа " + status.getPaymentId() + ": " + e.getMessage());
+            status.complete(false, "Ошибка обработки платежа");
+        } finally {
+            inFlight.release();
+        }
+        logger.logInfo("Платеж " + status.getPaymentId() + " завершен со статусом " + status.getState());
+    }
+
+    /**
+     * Пул метода оплаты; очередь не ограничена отдельно, так как ее длину держит лимит max-in-flight
+     */
+    private ExecutorService createExecutor(String paymentMethod) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(perMethodConcurrency, perMethodConcurrency, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-async-" + paymentMethod.toLowerCase(Locale.ROOT)
+                            + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        logger.logInfo("Пул асинхронных платежей метода " + paymentMethod + ": " + perMethodConcurrency + " потоков");
+        return executor;
+    }
+}
@@ -9,13 +9,17 @@ import org.home.sportshop.logging.LoggingService;
  */
 public class CreditCardPaymentStrategy implements PaymentStrategy {
     private final LoggingService logger = LoggingService.getInstance();
+    private final PaymentGateway gateway;
+    
+    public CreditCardPaymentStrategy(PaymentGateway gateway) {
+        this.gateway = gateway;
+    }
     
     @Override
     public boolean processPayment(String orderId, BigDecimal amount) {
         // Реальная логика взаимодействия с платежным шлюзом
         logger.logInfo("Обработка платежа по кредитной карте для заказа: " + orderId + " на сумму: " + amount);
-        // Симуляция успешной оплаты
-        return true;
+        return gateway.charge(getPaymentMethod(), orderId, amount);
     }
     
     @Override
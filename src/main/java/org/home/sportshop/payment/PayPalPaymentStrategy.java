@@ -9,13 +9,17 @@ import org.home.sportshop.logging.LoggingService;
  */
 public class PayPalPaymentStrategy implements PaymentStrategy {
     private final LoggingService logger = LoggingService.getInstance();
+    private final PaymentGateway gateway;
+    
+    public PayPalPaymentStrategy(PaymentGateway gateway) {
+        this.gateway = gateway;
+    }
     
     @Override
     public boolean processPayment(String orderId, BigDecimal amount) {
         // Реальная логика взаимодействия с API PayPal
         logger.logInfo("Обработка платежа через PayPal для заказа: " + orderId + " на сумму: " + amount);
-        // Симуляция успешной оплаты
-        return true;
+        return gateway.charge(getPaymentMethod(), orderId, amount);
     }
     
     @Override
@@ -0,0 +1,105 @@
+package org.home.sportshop.payment;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Автоматический выключатель для вызовов платежного провайдера.
+ * CLOSED - вызовы проходят; после N подряд неудачных вызовов переходит в OPEN.
+ * OPEN - вызовы сразу отклоняются; по истечении паузы переходит в HALF_OPEN.
+ * HALF_OPEN - пропускается ограниченное число пробных вызовов:
+ * успех закрывает выключатель, ошибка снова открывает его.
+ */
+public class PaymentCircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final int halfOpenProbes;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger probesInFlight = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+
+    public PaymentCircuitBreaker(int failureThreshold, long openDurationMs, int halfOpenProbes) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    /**
+     * Разрешен ли вызов. При true вызывающий обязан сообщить результат
+     * через {@link #onSuccess()} или {@link #onFailure()}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            State current = state.get();
+            switch (current) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.currentTimeMillis() - openedAt.get() < openDurationMs) {
+                        return false;
+                    }
+                    if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                        probesInFlight.set(0);
+                    }
+                    break;
+                case HALF_OPEN:
+                    int probes = probesInFlight.get();
+                    if (probes >= halfOpenProbes) {
+                        return false;
+                    }
+                    if (probesInFlight.compareAndSet(probes, probes + 1)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            probesInFlight.set(0);
+        }
+    }
+
+    /**
+     * Вызов не состоялся по причине, не связанной с провайдером (например, переполнен пул)
+     */
+    public void onCancelled() {
+        if (state.get() == State.HALF_OPEN) {
+            probesInFlight.updateAndGet(probes -> Math.max(probes - 1, 0));
+        }
+    }
+
+    public void onFailure() {
+        if (state.get() == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open();
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    private void open() {
+        openedAt.set(System.currentTimeMillis());
+        state.set(State.OPEN);
+        consecutiveFailures.set(0);
+        probesInFlight.set(0);
+    }
+}
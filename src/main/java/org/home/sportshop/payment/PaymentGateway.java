@@ -0,0 +1,18 @@
+package org.home.sportshop.payment;
+
+import java.math.BigDecimal;
+
+/**
+ * Интерфейс внешнего платежного шлюза, через который стратегии проводят списание
+ */
+public interface PaymentGateway {
+    /**
+     * Провести списание
+     *
+     * @param paymentMethod Метод оплаты
+     * @param orderId ID заказа
+     * @param amount Сумма
+     * @return true, если шлюз подтвердил платеж
+     */
+    boolean charge(String paymentMethod, String orderId, BigDecimal amount);
+}
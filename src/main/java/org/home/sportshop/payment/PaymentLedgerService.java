@@ -0,0 +1,138 @@
+package org.home.sportshop.payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.PaymentLedgerEntry;
+import org.home.sportshop.repository.PaymentLedgerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Журнал платежей с защитой от повторного списания.
+ * Попытка оплаты открывается строкой PENDING, а ее исход записывается новой строкой; статусы строк
+ * не переписываются (сверка обновляет только поля расчета успешных строк). Следующая попытка открывается, только если предыдущая завершилась ошибкой;
+ * конкурирующие повторы по тому же заказу упираются в уникальные ограничения журнала,
+ * а платежи по разным заказам не блокируют друг друга.
+ */
+@Service
+public class PaymentLedgerService {
+    private final PaymentLedgerRepository ledgerRepository;
+    private final LoggingService logger = LoggingService.getInstance();
+
+    @Autowired
+    public PaymentLedgerService(PaymentLedgerRepository ledgerRepository) {
+        this.ledgerRepository = ledgerRepository;
+    }
+
+    /**
+     * Зафиксировать новую попытку оплаты заказа
+     *
+     * @return Запись журнала со статусом PENDING
+     * @throws IllegalStateException если заказ уже оплачен или оплата уже проводится
+     */
+    public PaymentLedgerEntry openAttempt(String orderId, String paymentMethod, BigDecimal amount) {
+        PaymentLedgerEntry last = ledgerRepository.findFirstByOrderIdOrderByIdDesc(orderId).orElse(null);
+        if (last != null && PaymentLedgerEntry.STATUS_SUCCEEDED.equals(last.getStatus())) {
+            logger.logWarning("Повторная оплата уже оплаченного заказа #" + orderId + " отклонена");
+            throw new IllegalStateException("Заказ #" + orderId + " уже оплачен");
+        }
+        if (last != null && PaymentLedgerEntry.STATUS_UNKNOWN.equals(last.getStatus())) {
+            logger.logWarning("Исход предыдущей оплаты заказа #" + orderId + " неизвестен, повтор отклонен до сверки");
+            throw new IllegalStateException("Исход предыдущей оплаты заказа #" + orderId + " неизвестен, требуется сверка");
+        }
+        if (last != null && !PaymentLedgerEntry.STATUS_FAILED.equals(last.getStatus())) {
+            logger.logWarning("Оплата заказа #" + orderId + " уже проводится, повтор отклонен");
+            throw new IllegalStateException("Оплата заказа #" + orderId + " уже проводится");
+        }
+
+        PaymentLedgerEntry entry = newEntry(orderId, last == null ? 1 : last.getAttempt() + 1,
+                paymentMethod, amount, PaymentLedgerEntry.STATUS_PENDING);
+        try {
+            PaymentLedgerEntry saved = ledgerRepository.saveAndFlush(entry);
+            logger.logInfo("Платеж по заказу #" + orderId + " зарегистрирован в журнале, попытка " + saved.getAttempt());
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            logger.logWarning("Параллельная попытка оплаты заказа #" + orderId + " отклонена");
+            throw new IllegalStateException("Оплата заказа #" + orderId + " уже проводится");
+        }
+    }
+
+    /**
+     * Зафиксировать результат попытки оплаты
+     */
+    public void completeAttempt(PaymentLedgerEntry attempt, boolean success) {
+        appendOutcome(attempt, success ? PaymentLedgerEntry.STATUS_SUCCEEDED : PaymentLedgerEntry.STATUS_FAILED);
+    }
+
+    /**
+     * Зафиксировать, что исход попытки неизвестен (провайдер не ответил вовремя).
+     * Повторная оплата заказа отклоняется, пока попытка не закрыта сверкой.
+     */
+    public void markUnknown(PaymentLedgerEntry attempt) {
+        if (appendOutcome(attempt, PaymentLedgerEntry.STATUS_UNKNOWN) != null) {
+            logger.logWarning("Исход попытки " + attempt.getAttempt() + " по заказу #" + attempt.getOrderId() + " неизвестен, требуется сверка");
+        }
+    }
+
+    /**
+     * Закрыть зависшую или неизвестную попытку оплаты по результату сверки со шлюзом
+     *
+     * @return Дописанная запись с исходом попытки
+     * @throws IllegalStateException если у заказа нет незавершенной попытки
+     */
+    public PaymentLedgerEntry resolveAttempt(String orderId, boolean success) {
+        PaymentLedgerEntry last = ledgerRepository.findFirstByOrderIdOrderByIdDesc(orderId).orElse(null);
+        if (last == null || !(PaymentLedgerEntry.STATUS_PENDING.equals(last.getStatus())
+                || PaymentLedgerEntry.STATUS_UNKNOWN.equals(last.getStatus()))) {
+            throw new IllegalStateException("У заказа #" + orderId + " нет незавершенной попытки оплаты");
+        }
+        PaymentLedgerEntry outcome = appendOutcome(last,
+                success ? PaymentLedgerEntry.STATUS_SUCCEEDED : PaymentLedgerEntry.STATUS_FAILED);
+        if (outcome == null) {
+            throw new IllegalStateException("Попытка оплаты заказа #" + orderId + " уже завершена");
+        }
+        logger.logInfo("Попытка " + last.getAttempt() + " по заказу #" + orderId + " закрыта вручную со статусом " + outcome.getStatus());
+        return outcome;
+    }
+
+    /**
+     * Постраничное получение журнала платежей
+     */
+    public Page<PaymentLedgerEntry> getEntries(String orderId, Pageable pageable) {
+        if (orderId != null && !orderId.isEmpty()) {
+            return ledgerRepository.findByOrderId(orderId, pageable);
+        }
+        return ledgerRepository.findAll(pageable);
+    }
+
+    /**
+     * Дописать исход попытки; null, если у попытки уже есть окончательный исход
+     */
+    private PaymentLedgerEntry appendOutcome(PaymentLedgerEntry attempt, String status) {
+        PaymentLedgerEntry outcome = newEntry(attempt.getOrderId(), attempt.getAttempt(),
+                attempt.getPaymentMethod(), attempt.getAmount(), status);
+        try {
+            return ledgerRepository.saveAndFlush(outcome);
+        } catch (DataIntegrityViolationException e) {
+            logger.logWarning("Попытка оплаты " + attempt.getAttempt() + " по заказу #" + attempt.getOrderId() + " уже была завершена");
+            return null;
+        }
+    }
+
+    private static PaymentLedgerEntry newEntry(String orderId, int attempt, String paymentMethod, BigDecimal amount,
+                                               String status) {
+        PaymentLedgerEntry entry = new PaymentLedgerEntry();
+        entry.setOrderId(orderId);
+        entry.setAttempt(attempt);
+        entry.setPaymentMethod(paymentMethod);
+        entry.setAmount(amount);
+        entry.setStatus(status);
+        entry.setCreatedAt(LocalDateTime.now());
+        return entry;
+    }
+}
@@ -0,0 +1,18 @@
+package org.home.sportshop.payment;
+
+/**
+ * Провайдер не ответил вовремя: списание могло пройти, поэтому платеж нельзя считать ни успешным, ни отклоненным.
+ * Попытка остается в журнале со статусом UNKNOWN до сверки, повторная оплата заказа до этого отклоняется.
+ */
+public class PaymentOutcomeUnknownException extends RuntimeException {
+    private final String orderId;
+
+    public PaymentOutcomeUnknownException(String orderId, String message) {
+        super(message);
+        this.orderId = orderId;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+}
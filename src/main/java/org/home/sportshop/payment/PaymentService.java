@@ -4,12 +4,18 @@ import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.PaymentLedgerEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 /**
  * Сервис для работы со стратегиями оплаты
@@ -17,7 +23,7 @@ import jakarta.annotation.PostConstruct;
  */
 @Service
 public class PaymentService {
-    private final Map<String, PaymentStrategy> strategies = new HashMap<>();
+    private final Map<String, ResilientPaymentStrategy> strategies = new HashMap<>();
     private final LoggingService logger = LoggingService.getInstance();
     
     // Маппинг ID методов оплаты к их кодам
@@ -34,24 +40,71 @@ public class PaymentService {
         "CASH_ON_DELIVERY", 3L
     );
     
+    private final PaymentGateway paymentGateway;
+    private final PaymentLedgerService ledgerService;
+    
+    // Параметры изоляции провайдеров (bulkhead, таймаут, выключатель)
+    @Value("${payment.resilience.max-concurrent:10}")
+    private int maxConcurrentCalls;
+    
+    @Value("${payment.resilience.queue-capacity:20}")
+    private int queueCapacity;
+    
+    @Value("${payment.resilience.timeout-ms:5000}")
+    private long callTimeoutMs;
+    
+    @Value("${payment.resilience.failure-threshold:5}")
+    private int failureThreshold;
+    
+    @Value("${payment.resilience.open-duration-ms:30000}")
+    private long openDurationMs;
+    
+    @Value("${payment.resilience.half-open-probes:1}")
+    private int halfOpenProbes;
+    
+    @Autowired
+    public PaymentService(PaymentGateway paymentGateway, PaymentLedgerService ledgerService) {
+        this.paymentGateway = paymentGateway;
+        this.ledgerService = ledgerService;
+    }
+    
     @PostConstruct
     public void init() {
         // Регистрируем доступные стратегии оплаты
-        registerStrategy(new CreditCardPaymentStrategy());
-        registerStrategy(new PayPalPaymentStrategy());
+        registerStrategy(new CreditCardPaymentStrategy(paymentGateway));
+        registerStrategy(new PayPalPaymentStrategy(paymentGateway));
         registerStrategy(new CashOnDeliveryPaymentStrategy());
         
         logger.logInfo("PaymentService инициализирован с " + strategies.size() + " стратегиями оплаты");
     }
     
+    @PreDestroy
+    public void shutdown() {
+        strategies.values().forEach(ResilientPaymentStrategy::shutdown);
+    }
+    
     /**
-     * Регистрация новой стратегии оплаты
+     * Регистрация новой стратегии оплаты.
+     * Стратегия оборачивается собственным пулом вызовов, таймаутом и выключателем.
      */
     public void registerStrategy(PaymentStrategy strategy) {
-        strategies.put(strategy.getPaymentMethod(), strategy);
+        ResilientPaymentStrategy resilient = strategy instanceof ResilientPaymentStrategy
+            ? (ResilientPaymentStrategy) strategy
+            : new ResilientPaymentStrategy(strategy, maxConcurrentCalls, queueCapacity, callTimeoutMs,
+                    new PaymentCircuitBreaker(failureThreshold, openDurationMs, halfOpenProbes));
+        strategies.put(strategy.getPaymentMethod(), resilient);
         logger.logInfo("Зарегистрирована стратегия оплаты: " + strategy.getPaymentMethod());
     }
     
+    /**
+     * Метрики изоляции по каждому методу оплаты
+     */
+    public List<Map<String, Object>> getResilienceMetrics() {
+        return strategies.values().stream()
+            .map(ResilientPaymentStrategy::getMetrics)
+            .collect(Collectors.toList());
+    }
+    
     /**
      * Получение стратегии оплаты по её идентификатору
      */
@@ -76,22 +129,46 @@ public class PaymentService {
     }
     
     /**
-     * Обработка платежа с использованием выбранной стратегии
+     * Обработка платежа с использованием выбранной стратегии.
+     * Попытка фиксируется в журнале платежей после проверки выключателя провайдера, но до обращения к нему.
+     * Если провайдер не ответил вовремя, попытка остается в журнале с неизвестным исходом до сверки.
+     * 
+     * @throws IllegalStateException если заказ уже оплачен или оплата уже проводится
+     * @throws RejectedExecutionException если провайдер временно недоступен или перегружен
+     * @throws PaymentOutcomeUnknownException если исход платежа неизвестен (таймаут провайдера)
      */
     public boolean processPayment(String paymentMethod, String orderId, BigDecimal amount) {
-        PaymentStrategy strategy = getStrategy(paymentMethod);
+        ResilientPaymentStrategy strategy = strategies.get(paymentMethod);
         if (strategy == null) {
             logger.logError("Неизвестный метод оплаты: " + paymentMethod);
             return false;
         }
         
         logger.logInfo("Выбрана стратегия оплаты: " + paymentMethod);
+        AtomicReference<PaymentLedgerEntry> entry = new AtomicReference<>();
         
+        boolean success = false;
+        boolean outcomeUnknown = false;
         try {
-            return strategy.processPayment(orderId, amount);
+            success = strategy.processPayment(orderId, amount,
+                () -> entry.set(ledgerService.openAttempt(orderId, paymentMethod, amount)));
+            return success;
+        } catch (PaymentOutcomeUnknownException e) {
+            outcomeUnknown = true;
+            throw e;
+        } catch (IllegalStateException | RejectedExecutionException e) {
+            throw e;
         } catch (Exception e) {
             logger.logError("Ошибка при обработке платежа: " + e.getMessage());
             return false;
+        } finally {
+            if (entry.get() != null) {
+                if (outcomeUnknown) {
+                    ledgerService.markUnknown(entry.get());
+                } else {
+                    ledgerService.completeAttempt(entry.get(), success);
+                }
+            }
         }
     }
     
@@ -0,0 +1,58 @@
+package org.home.sportshop.payment;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Состояние асинхронно обрабатываемого платежа
+ */
+public class PaymentStatus {
+    public enum State { PENDING, PROCESSING, SUCCEEDED, FAILED, UNKNOWN }
+
+    private final String paymentId;
+    private final String orderId;
+    private final String paymentMethod;
+    private final BigDecimal amount;
+    private final LocalDateTime createdAt;
+    private volatile State state = State.PENDING;
+    private volatile LocalDateTime completedAt;
+    private volatile String message;
+
+    public PaymentStatus(String paymentId, String orderId, String paymentMethod, BigDecimal amount) {
+        this.paymentId = paymentId;
+        this.orderId = orderId;
+        this.paymentMethod = paymentMethod;
+        this.amount = amount;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    void markProcessing() {
+        this.state = State.PROCESSING;
+    }
+
+    void complete(boolean success, String message) {
+        complete(success ? State.SUCCEEDED : State.FAILED, message);
+    }
+
+    void complete(State state, String message) {
+        this.message = message;
+        this.completedAt = LocalDateTime.now();
+        this.state = state;
+    }
+
+    /**
+     * Обработка завершена; для UNKNOWN исход платежа уточняется сверкой журнала
+     */
+    public boolean isCompleted() {
+        return state == State.SUCCEEDED || state == State.FAILED || state == State.UNKNOWN;
+    }
+
+    public String getPaymentId() { return paymentId; }
+    public String getOrderId() { return orderId; }
+    public String getPaymentMethod() { return paymentMethod; }
+    public BigDecimal getAmount() { return amount; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public State getState() { return state; }
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public String getMessage() { return message; }
+}
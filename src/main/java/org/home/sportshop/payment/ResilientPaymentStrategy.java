@@ -0,0 +1,173 @@
+package org.home.sportshop.payment;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.home.sportshop.logging.LoggingService;
+
+/**
+ * Декоратор стратегии оплаты с изоляцией отказов провайдера:
+ * собственный ограниченный пул потоков (bulkhead) с ограниченной очередью,
+ * таймаут вызова и автоматический выключатель с пробными вызовами.
+ * Медленный провайдер занимает только свой пул и не блокирует остальные методы оплаты.
+ */
+public class ResilientPaymentStrategy implements PaymentStrategy {
+    private final PaymentStrategy delegate;
+    private final ThreadPoolExecutor bulkhead;
+    private final PaymentCircuitBreaker circuitBreaker;
+    private final long timeoutMs;
+    private final LoggingService logger = LoggingService.getInstance();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejectedByBulkhead = new LongAdder();
+    private final LongAdder rejectedByCircuit = new LongAdder();
+
+    public ResilientPaymentStrategy(PaymentStrategy delegate, int maxConcurrent, int queueCapacity, long timeoutMs,
+                                    PaymentCircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.timeoutMs = timeoutMs;
+        this.circuitBreaker = circuitBreaker;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.bulkhead = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "payment-" + delegate.getPaymentMethod().toLowerCase(Locale.ROOT) + "-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.bulkhead.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @throws RejectedExecutionException если выключатель открыт или пул провайдера переполнен
+     * @throws PaymentOutcomeUnknownException если провайдер не ответил за отведенное время
+     */
+    @Override
+    public boolean processPayment(String orderId, BigDecimal amount) {
+        return processPayment(orderId, amount, () -> { });
+    }
+
+    /**
+     * Провести платеж; beforeCall выполняется после того, как выключатель пропустил вызов,
+     * но до обращения к провайдеру (например, регистрация попытки в журнале платежей).
+     * Если beforeCall бросает исключение, провайдер не вызывается.
+     *
+     * @throws RejectedExecutionException если выключатель открыт, пул провайдера переполнен
+     *         или вызов так и не дождался свободного потока за отведенное время
+     * @throws PaymentOutcomeUnknownException если провайдер не ответил за отведенное время
+     */
+    public boolean processPayment(String orderId, BigDecimal amount, Runnable beforeCall) {
+        calls.increment();
+        if (!circuitBreaker.tryAcquire()) {
+            rejectedByCircuit.increment();
+            logger.logWarning("Провайдер " + getPaymentMethod() + " временно недоступен (выключатель открыт), заказ #" + orderId);
+            throw new RejectedExecutionException("Метод оплаты " + getPaymentMethod() + " временно недоступен");
+        }
+        try {
+            beforeCall.run();
+        } catch (RuntimeException e) {
+            circuitBreaker.onCancelled();
+            throw e;
+        }
+
+        // Флаг захватывает либо поток пула перед обращением к провайдеру, либо вызывающий при таймауте в очереди
+        AtomicBoolean started = new AtomicBoolean();
+        Future<Boolean> future;
+        try {
+            future = bulkhead.submit(() -> started.compareAndSet(false, true) && delegate.processPayment(orderId, amount));
+        } catch (RejectedExecutionException e) {
+            rejectedByBulkhead.increment();
+            // Отказ по переполнению пула не считается ошибкой провайдера, но пробный вызов нужно вернуть
+            circuitBreaker.onCancelled();
+            logger.logWarning("Пул провайдера " + getPaymentMethod() + " переполнен, заказ #" + orderId + " отклонен");
+            throw new RejectedExecutionException("Метод оплаты " + getPaymentMethod() + " перегружен");
+        }
+
+        try {
+            boolean result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            if (result) {
+                successes.increment();
+            } else {
+                failures.increment();
+            }
+            // Отказ в платеже - штатный ответ провайдера, выключатель реагирует только на сбои
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            if (started.compareAndSet(false, true)) {
+                // Вызов так и не покинул очередь: провайдер о нем не знает, это перегрузка, а не сбой
+                future.cancel(false);
+                bulkhead.remove((Runnable) future);
+                rejectedByBulkhead.increment();
+                circuitBreaker.onCancelled();
+                logger.logWarning("Заказ #" + orderId + " не дождался свободного потока провайдера " + getPaymentMethod()
+                        + " за " + timeoutMs + " мс");
+                throw new RejectedExecutionException("Метод оплаты " + getPaymentMethod() + " перегружен");
+            }
+            future.cancel(true);
+            timeouts.increment();
+            circuitBreaker.onFailure();
+            logger.logError("Таймаут провайдера " + getPaymentMethod() + " (" + timeoutMs + " мс) для заказа #" + orderId);
+            // Запрос мог дойти до провайдера, поэтому отказом таймаут не считается
+            throw new PaymentOutcomeUnknownException(orderId,
+                    "Провайдер " + getPaymentMethod() + " не ответил, исход оплаты заказа #" + orderId + " будет уточнен при сверке");
+        } catch (ExecutionException e) {
+            failures.increment();
+            circuitBreaker.onFailure();
+            logger.logError("Сбой провайдера " + getPaymentMethod() + " для заказа #" + orderId + ": " + e.getCause().getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            circuitBreaker.onFailure();
+            throw new PaymentOutcomeUnknownException(orderId,
+                    "Ожидание ответа провайдера " + getPaymentMethod() + " по заказу #" + orderId + " прервано");
+        }
+    }
+
+    @Override
+    public String getPaymentMethod() {
+        return delegate.getPaymentMethod();
+    }
+
+    /**
+     * Текущие метрики изоляции провайдера
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("paymentMethod", getPaymentMethod());
+        metrics.put("circuitState", circuitBreaker.getState());
+        metrics.put("consecutiveFailures", circuitBreaker.getConsecutiveFailures());
+        metrics.put("activeCalls", bulkhead.getActiveCount());
+        metrics.put("queuedCalls", bulkhead.getQueue().size());
+        metrics.put("maxConcurrent", bulkhead.getMaximumPoolSize());
+        metrics.put("calls", calls.sum());
+        metrics.put("successes", successes.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("timeouts", timeouts.sum());
+        metrics.put("rejectedByBulkhead", rejectedByBulkhead.sum());
+        metrics.put("rejectedByCircuit", rejectedByCircuit.sum());
+        return metrics;
+    }
+
+    public void shutdown() {
+        bulkhead.shutdownNow();
+    }
+}
@@ -0,0 +1,38 @@
+package org.home.sportshop.payment;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Интерфейс шлюза пакетного расчета (settlement) по платежам одного метода оплаты
+ */
+public interface SettlementGateway {
+    /**
+     * Отправить пакет платежей на расчет
+     *
+     * @param paymentMethod Метод оплаты
+     * @param items Платежи пакета
+     * @return ID записей журнала, подтвержденных шлюзом; остальные считаются отклоненными
+     */
+    Set<Long> settleBatch(String paymentMethod, List<SettlementItem> items);
+
+    /**
+     * Платеж в составе пакета
+     */
+    class SettlementItem {
+        private final Long ledgerId;
+        private final String orderId;
+        private final BigDecimal amount;
+
+        public SettlementItem(Long ledgerId, String orderId, BigDecimal amount) {
+            this.ledgerId = ledgerId;
+            this.orderId = orderId;
+            this.amount = amount;
+        }
+
+        public Long getLedgerId() { return ledgerId; }
+        public String getOrderId() { return orderId; }
+        public BigDecimal getAmount() { return amount; }
+    }
+}
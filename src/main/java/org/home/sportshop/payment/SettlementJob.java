@@ -0,0 +1,150 @@
+package org.home.sportshop.payment;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.PaymentLedgerEntry;
+import org.home.sportshop.repository.PaymentLedgerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Пакетный расчет и сверка платежей.
+ * Читает нерассчитанные успешные платежи из журнала порциями (keyset по ID),
+ * группирует их по методу оплаты, отправляет пакетами в шлюз расчетов
+ * и сверяет с суммами заказов set-based запросами, без обработки заказов по одному.
+ */
+@Component
+public class SettlementJob {
+    // Миллисекунды в ID пакета: два запуска в одну секунду (плановый и ручной) не должны получить один ID
+    private static final DateTimeFormatter BATCH_ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final PaymentLedgerRepository ledgerRepository;
+    private final SettlementGateway settlementGateway;
+    private final LoggingService logger = LoggingService.getInstance();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile SettlementReport lastReport;
+
+    @Value("${payment.settlement.methods:CREDIT_CARD,PAYPAL}")
+    private List<String> settlementMethods;
+
+    @Value("${payment.settlement.chunk-size:500}")
+    private int chunkSize;
+
+    @Autowired
+    public SettlementJob(PaymentLedgerRepository ledgerRepository, SettlementGateway settlementGateway) {
+        this.ledgerRepository = ledgerRepository;
+        this.settlementGateway = settlementGateway;
+    }
+
+    @Scheduled(cron = "${payment.settlement.cron:0 30 23 * * *}")
+    public void scheduledRun() {
+        run();
+    }
+
+    /**
+     * Запуск расчета
+     *
+     * @return Итоги запуска
+     * @throws IllegalStateException если расчет уже выполняется
+     */
+    public SettlementReport run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Расчет платежей уже выполняется");
+        }
+        try {
+            return doRun();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public SettlementReport getLastReport() {
+        return lastReport;
+    }
+
+    private SettlementReport doRun() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long started = System.nanoTime();
+        String batchId = "STL-" + startedAt.format(BATCH_ID_FORMAT);
+        logger.logInfo("Запуск пакетного расчета платежей " + batchId);
+
+        long processed = 0;
+        long settled = 0;
+        long mismatched = 0;
+        long rejected = 0;
+        long unmatched = 0;
+        Map<String, Long> processedByMethod = new LinkedHashMap<>();
+
+        long afterId = 0;
+        while (true) {
+            List<PaymentLedgerEntry> chunk = ledgerRepository.findUnsettledChunk(afterId, settlementMethods,
+                    PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            afterId = chunk.get(chunk.size() - 1).getId();
+            processed += chunk.size();
+
+            Map<String, List<PaymentLedgerEntry>> byMethod = chunk.stream()
+                    .collect(Collectors.groupingBy(PaymentLedgerEntry::getPaymentMethod));
+
+            for (Map.Entry<String, List<PaymentLedgerEntry>> group : byMethod.entrySet()) {
+                String method = group.getKey();
+                List<SettlementGateway.SettlementItem> items = group.getValue().stream()
+                        .map(e -> new SettlementGateway.SettlementItem(e.getId(), e.getOrderId(), e.getAmount()))
+                        .collect(Collectors.toList());
+                processedByMethod.merge(method, (long) items.size(), Long::sum);
+
+                Set<Long> accepted;
+                try {
+                    accepted = settlementGateway.settleBatch(method, items);
+                } catch (Exception e) {
+                    // Пакет остается нерассчитанным и будет отправлен при следующем запуске
+                    logger.logError("Ошибка шлюза расчетов для " + method + ": " + e.getMessage());
+                    continue;
+                }
+
+                List<Long> acceptedIds = new ArrayList<>();
+                List<Long> rejectedIds = new ArrayList<>();
+                for (SettlementGateway.SettlementItem item : items) {
+                    (accepted.contains(item.getLedgerId()) ? acceptedIds : rejectedIds).add(item.getLedgerId());
+                }
+
+                LocalDateTime now = LocalDateTime.now();
+                if (!acceptedIds.isEmpty()) {
+                    settled += ledgerRepository.markSettledMatchingOrders(acceptedIds, batchId, now);
+                    mismatched += ledgerRepository.markMismatchedOrders(acceptedIds, batchId, now);
+                    // Подтвержденные шлюзом платежи без соответствующего заказа
+                    unmatched += ledgerRepository.markSettlementStatus(acceptedIds,
+                            PaymentLedgerEntry.SETTLEMENT_UNMATCHED, batchId, now);
+                }
+                if (!rejectedIds.isEmpty()) {
+                    rejected += ledgerRepository.markSettlementStatus(rejectedIds,
+                            PaymentLedgerEntry.SETTLEMENT_REJECTED, batchId, now);
+                }
+            }
+        }
+
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        SettlementReport report = new SettlementReport(batchId, startedAt, durationMs, processed, settled,
+                mismatched, rejected, unmatched, processedByMethod);
+        lastReport = report;
+        logger.logInfo("Пакетный расчет завершен: " + report);
+        if (mismatched > 0 || unmatched > 0) {
+            logger.logWarning("Расчет " + batchId + ": расхождений с заказами - " + mismatched + ", без заказа - " + unmatched);
+        }
+        return report;
+    }
+}
@@ -0,0 +1,56 @@
+package org.home.sportshop.payment;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Итоги одного запуска пакетного расчета платежей
+ */
+public class SettlementReport {
+    private final String batchId;
+    private final LocalDateTime startedAt;
+    private final long durationMs;
+    private final long processed;
+    private final long settled;
+    private final long mismatched;
+    private final long rejected;
+    private final long unmatched;
+    private final Map<String, Long> processedByMethod;
+
+    public SettlementReport(String batchId, LocalDateTime startedAt, long durationMs, long processed, long settled,
+                            long mismatched, long rejected, long unmatched, Map<String, Long> processedByMethod) {
+        this.batchId = batchId;
+        this.startedAt = startedAt;
+        this.durationMs = durationMs;
+        this.processed = processed;
+        this.settled = settled;
+        this.mismatched = mismatched;
+        this.rejected = rejected;
+        this.unmatched = unmatched;
+        this.processedByMethod = processedByMethod;
+    }
+
+    public String getBatchId() { return batchId; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public long getDurationMs() { return durationMs; }
+    public long getProcessed() { return processed; }
+    public long getSettled() { return settled; }
+    public long getMismatched() { return mismatched; }
+    public long getRejected() { return rejected; }
+    public long getUnmatched() { return unmatched; }
+    public Map<String, Long> getProcessedByMethod() { return processedByMethod; }
+
+    /**
+     * Пропускная способность запуска, платежей в секунду
+     */
+    public double getThroughputPerSecond() {
+        return durationMs > 0 ? processed * 1000.0 / durationMs : processed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SettlementReport [batchId=%s, processed=%d, settled=%d, mismatched=%d, rejected=%d, " +
+                "unmatched=%d, durationMs=%d, throughput=%.1f/с]",
+                batchId, processed, settled, mismatched, rejected, unmatched, durationMs, getThroughputPerSecond());
+    }
+}
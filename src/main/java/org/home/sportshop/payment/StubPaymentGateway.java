@@ -0,0 +1,72 @@
+package org.home.sportshop.payment;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.home.sportshop.logging.LoggingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Локальная заглушка платежного шлюза с настраиваемой задержкой ответа и внедрением сбоев.
+ * Используется, пока стратегии не подключены к реальным шлюзам.
+ * Задержка и доля сбоев применяются к методам из payment.gateway.stub.fault-methods,
+ * а если список пуст - ко всем методам.
+ */
+@Component
+public class StubPaymentGateway implements PaymentGateway {
+    private final LoggingService logger = LoggingService.getInstance();
+
+    @Value("${payment.gateway.stub.latency-ms:0}")
+    private long latencyMs;
+
+    @Value("${payment.gateway.stub.failure-rate:0.0}")
+    private double failureRate;
+
+    @Value("${payment.gateway.stub.fault-methods:}")
+    private List<String> faultMethods;
+
+    @Override
+    public boolean charge(String paymentMethod, String orderId, BigDecimal amount) {
+        boolean affected = faultMethods == null || faultMethods.isEmpty() || faultMethods.contains(paymentMethod);
+        if (affected && latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (affected && failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            logger.logWarning("STUB GATEWAY: имитация сбоя шлюза " + paymentMethod + " для заказа " + orderId);
+            throw new IllegalStateException("Шлюз " + paymentMethod + " недоступен");
+        }
+        logger.logInfo("STUB GATEWAY: платеж " + paymentMethod + " по заказу " + orderId + " на сумму " + amount + " подтвержден");
+        return true;
+    }
+
+    public long getLatencyMs() {
+        return latencyMs;
+    }
+
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    public double getFailureRate() {
+        return failureRate;
+    }
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    public List<String> getFaultMethods() {
+        return faultMethods;
+    }
+
+    public void setFaultMethods(List<String> faultMethods) {
+        this.faultMethods = faultMethods;
+    }
+}
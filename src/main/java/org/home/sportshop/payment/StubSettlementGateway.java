@@ -0,0 +1,22 @@
+package org.home.sportshop.payment;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.home.sportshop.logging.LoggingService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Локальная заглушка шлюза расчетов: подтверждает все платежи пакета
+ */
+@Component
+public class StubSettlementGateway implements SettlementGateway {
+    private final LoggingService logger = LoggingService.getInstance();
+
+    @Override
+    public Set<Long> settleBatch(String paymentMethod, List<SettlementItem> items) {
+        logger.logInfo("STUB SETTLEMENT: пакет " + paymentMethod + " из " + items.size() + " платежей подтвержден");
+        return items.stream().map(SettlementItem::getLedgerId).collect(Collectors.toSet());
+    }
+}
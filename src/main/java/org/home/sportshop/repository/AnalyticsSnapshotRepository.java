@@ -0,0 +1,22 @@
+package org.home.sportshop.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.home.sportshop.model.AnalyticsSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface AnalyticsSnapshotRepository extends JpaRepository<AnalyticsSnapshot, Long> {
+    Optional<AnalyticsSnapshot> findTopByOrderByCapturedAtDesc();
+
+    @Transactional
+    @Modifying
+    @Query("delete from AnalyticsSnapshot s where s.capturedAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
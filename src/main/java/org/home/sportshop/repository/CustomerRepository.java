@@ -4,7 +4,11 @@ import java.util.List;
 import java.util.Optional;
 
 import org.home.sportshop.model.Customer;
+import org.home.sportshop.model.dto.CustomerSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -12,4 +16,36 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Optional<Customer> findByEmail(String email);
     Optional<Customer> findByPhone(String phone);
     List<Customer> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Клиенты, совпадающие по ID пользователя, email или телефону - одним запросом.
+     * Параметры со значением null ни с чем не совпадают.
+     */
+    @Query("select c from Customer c where c.user.id = :userId or c.email = :email or c.phone = :phone")
+    List<Customer> findMatching(@Param("userId") Long userId, @Param("email") String email, @Param("phone") String phone);
+
+    /**
+     * Вставка клиента без ошибки при конфликте уникальности email/телефона.
+     *
+     * @return ID нового клиента или пустой список, если клиент с таким email или телефоном уже существует
+     */
+    @Query(value = "INSERT INTO customers (name, phone, email, user_id) " +
+                   "VALUES (:name, :phone, CAST(:email AS varchar), CAST(:userId AS bigint)) " +
+                   "ON CONFLICT DO NOTHING RETURNING id", nativeQuery = true)
+    List<Long> insertIfAbsent(@Param("name") String name, @Param("phone") String phone,
+                              @Param("email") String email, @Param("userId") Long userId);
+
+    /**
+     * Краткие данные всех клиентов: выбираются только нужные столбцы, без загрузки пользователей и их ролей
+     */
+    @Query("select new org.home.sportshop.model.dto.CustomerSummary(c.id, c.name, c.phone, c.email, u.id) " +
+           "from Customer c left join c.user u order by c.id")
+    List<CustomerSummary> findAllSummaries();
+
+    /**
+     * Порция кратких данных клиентов (keyset по ID) для построения поискового индекса
+     */
+    @Query("select new org.home.sportshop.model.dto.CustomerSummary(c.id, c.name, c.phone, c.email, u.id) " +
+           "from Customer c left join c.user u where c.id > :afterId order by c.id")
+    List<CustomerSummary> findSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+}
@@ -0,0 +1,13 @@
+package org.home.sportshop.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.home.sportshop.model.DeliverySlotUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DeliverySlotUsageRepository extends JpaRepository<DeliverySlotUsage, Long> {
+    List<DeliverySlotUsage> findBySlotDateGreaterThanEqual(LocalDate date);
+}
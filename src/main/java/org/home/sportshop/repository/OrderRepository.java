@@ -1,13 +1,59 @@
 package org.home.sportshop.repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.home.sportshop.model.Customer;
 import org.home.sportshop.model.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByCustomerIn(List<Customer> customers);
-}
\ No newline at end of file
+
+    /**
+     * Заказ вместе с позициями: ответ строится вне транзакции, когда ленивую коллекцию уже не загрузить
+     */
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<Order> findWithItemsById(Long id);
+
+    /**
+     * Снять слот доставки с заказа, если он все еще занят этим слотом.
+     * Ровно одна из конкурирующих транзакций получает 1 и освобождает слот.
+     */
+    @Modifying
+    @Query("update Order o set o.deliverySlot = null where o.id = :id and o.deliverySlot = :slot")
+    int clearDeliverySlot(@Param("id") Long id, @Param("slot") String slot);
+
+    /**
+     * Все заказы курсором: строка на каждую позицию (заказ без позиций - одна строка с null),
+     * строки одного заказа идут подряд. Клиент, пользователь и товар позиции присоединяются в том же запросе.
+     * Вызывается только внутри транзакции.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select o, oi from Order o join fetch o.customer c left join fetch c.user "
+            + "left join o.orderItems oi left join fetch oi.product order by o.id, oi.id")
+    Stream<Object[]> streamAllWithItems();
+
+    /**
+     * Заказы пользователя одним запросом с присоединением клиента (вместо поиска пользователя и его клиентов)
+     */
+    @Query(value = "select o from Order o join fetch o.customer c where c.user.id = :userId",
+           countQuery = "select count(o) from Order o where o.customer.user.id = :userId")
+    Page<Order> findPageByUserId(@Param("userId") Long userId, Pageable pageable);
+}
@@ -0,0 +1,76 @@
+package org.home.sportshop.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.home.sportshop.model.PaymentLedgerEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface PaymentLedgerRepository extends JpaRepository<PaymentLedgerEntry, Long> {
+    /**
+     * order_id журнала приводится к типу orders.id, чтобы соединение шло по первичному ключу заказов;
+     * нечисловые order_id не приводятся (иначе весь UPDATE падает) и остаются без заказа
+     */
+    String ORDER_ID_AS_BIGINT = "CASE WHEN l.order_id ~ '^[0-9]+$' AND length(l.order_id) <= 18 THEN CAST(l.order_id AS bigint) END";
+
+    Page<PaymentLedgerEntry> findByOrderId(String orderId, Pageable pageable);
+
+    /**
+     * Последняя запись журнала по заказу - текущее состояние его оплаты
+     */
+    Optional<PaymentLedgerEntry> findFirstByOrderIdOrderByIdDesc(String orderId);
+
+    @Query("select e from PaymentLedgerEntry e where e.status = 'SUCCEEDED' and e.settlementStatus is null " +
+           "and e.paymentMethod in :methods and e.id > :afterId order by e.id")
+    List<PaymentLedgerEntry> findUnsettledChunk(@Param("afterId") Long afterId,
+                                                @Param("methods") Collection<String> methods,
+                                                Pageable pageable);
+
+    /**
+     * Сверка подтвержденных шлюзом платежей с заказами одним запросом:
+     * совпадающие по сумме платежи помечаются как SETTLED.
+     * Заказ ищется по первичному ключу, поэтому приводится order_id журнала, а не orders.id.
+     * Затрагиваемая таблица указана явно, иначе Hibernate очищает после native UPDATE весь кэш второго уровня.
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "payment_ledger"))
+    @Query(value = "UPDATE payment_ledger l SET settlement_status = 'SETTLED', settled_at = :settledAt, settlement_batch_id = :batchId " +
+                   "FROM orders o WHERE o.id = " + ORDER_ID_AS_BIGINT + " AND l.amount = o.total_price " +
+                   "AND l.id IN (:ids) AND l.settlement_status IS NULL", nativeQuery = true)
+    int markSettledMatchingOrders(@Param("ids") Collection<Long> ids, @Param("batchId") String batchId,
+                                  @Param("settledAt") LocalDateTime settledAt);
+
+    /**
+     * Платежи, сумма которых расходится с суммой заказа, помечаются как MISMATCH
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "payment_ledger"))
+    @Query(value = "UPDATE payment_ledger l SET settlement_status = 'MISMATCH', settled_at = :settledAt, settlement_batch_id = :batchId " +
+                   "FROM orders o WHERE o.id = " + ORDER_ID_AS_BIGINT + " AND l.amount <> o.total_price " +
+                   "AND l.id IN (:ids) AND l.settlement_status IS NULL", nativeQuery = true)
+    int markMismatchedOrders(@Param("ids") Collection<Long> ids, @Param("batchId") String batchId,
+                             @Param("settledAt") LocalDateTime settledAt);
+
+    @Transactional
+    @Modifying
+    @Query("update PaymentLedgerEntry e set e.settlementStatus = :settlementStatus, e.settledAt = :settledAt, " +
+           "e.settlementBatchId = :batchId where e.id in :ids and e.settlementStatus is null")
+    int markSettlementStatus(@Param("ids") Collection<Long> ids, @Param("settlementStatus") String settlementStatus,
+                             @Param("batchId") String batchId, @Param("settledAt") LocalDateTime settledAt);
+}
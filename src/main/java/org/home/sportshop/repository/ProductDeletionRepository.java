@@ -0,0 +1,34 @@
+package org.home.sportshop.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.home.sportshop.model.ProductDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ProductDeletionRepository extends JpaRepository<ProductDeletion, Long> {
+
+    /**
+     * Удаления после записи журнала afterId, зафиксированные до until
+     */
+    @Query("select d from ProductDeletion d where d.id > :afterId and d.deletedAt < :until order by d.id")
+    List<ProductDeletion> findAfter(@Param("afterId") Long afterId, @Param("until") LocalDateTime until, Pageable pageable);
+
+    /**
+     * ID последней записи журнала, сделанной не позже момента since
+     */
+    @Query("select coalesce(max(d.id), 0) from ProductDeletion d where d.deletedAt <= :since")
+    Long findLastIdUpTo(@Param("since") LocalDateTime since);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ProductDeletion d where d.deletedAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
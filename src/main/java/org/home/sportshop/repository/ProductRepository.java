@@ -1,9 +1,73 @@
 package org.home.sportshop.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.home.sportshop.model.Product;
+import org.home.sportshop.model.dto.ProductResponse;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Потоковое чтение всего каталога (курсором, порциями fetch size) для построения производных индексов.
+     * Вызывается только внутри транзакции.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAll();
+
+    /**
+     * Товар с блокировкой строки до конца транзакции (SELECT ... FOR UPDATE).
+     * Состояние читается из заблокированной строки, а не из кэша второго уровня,
+     * поэтому параллельное изменение не может подменить исходный остаток.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Весь каталог в виде DTO ответа, от последних измененных товаров
+     */
+    @Query("select new org.home.sportshop.model.dto.ProductResponse(p.id, p.name, p.price, p.description, p.stock, "
+            + "p.weight, p.imageUrl, p.createdAt, p.updatedAt) from Product p order by p.updatedAt desc")
+    List<ProductResponse> findAllResponses();
+
+    /**
+     * Товары, измененные после позиции (since, afterId) и до until, в порядке (updatedAt, id).
+     * Использует индекс idx_products_updated_at.
+     */
+    @Query("select new org.home.sportshop.model.dto.ProductResponse(p.id, p.name, p.price, p.description, p.stock, "
+            + "p.weight, p.imageUrl, p.createdAt, p.updatedAt) from Product p "
+            + "where (p.updatedAt > :since or (p.updatedAt = :since and p.id > :afterId)) "
+            + "and p.updatedAt < :until order by p.updatedAt, p.id")
+    List<ProductResponse> findChangedAfter(@Param("since") LocalDateTime since, @Param("afterId") Long afterId,
+                                           @Param("until") LocalDateTime until, Pageable pageable);
+
+    /**
+     * Число товаров и время последнего изменения каталога
+     */
+    @Query("select count(p) as count, max(p.updatedAt) as lastUpdatedAt from Product p")
+    CatalogStats findCatalogStats();
+
+    interface CatalogStats {
+        Long getCount();
+        LocalDateTime getLastUpdatedAt();
+    }
+}
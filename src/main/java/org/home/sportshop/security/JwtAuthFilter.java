@@ -76,6 +76,12 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                     UsernamePasswordAuthenticationToken authToken = 
                             new UsernamePasswordAuthenticationToken(username, null, authorities);
                     
+                    // ID пользователя из токена, чтобы не искать пользователя в БД по имени
+                    Object userId = claims.get("userId");
+                    if (userId instanceof Number) {
+                        authToken.setDetails(((Number) userId).longValue());
+                    }
+                    
                     // Устанавливаем аутентификацию в контекст
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
@@ -0,0 +1,26 @@
+package org.home.sportshop.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Вспомогательные методы для доступа к текущему аутентифицированному пользователю
+ */
+public final class SecurityUtils {
+
+    private SecurityUtils() {
+    }
+
+    /**
+     * ID текущего пользователя из JWT (claim userId)
+     *
+     * @return ID пользователя или null, если запрос не аутентифицирован или токен не содержит ID
+     */
+    public static Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getDetails() instanceof Long ? (Long) authentication.getDetails() : null;
+    }
+}
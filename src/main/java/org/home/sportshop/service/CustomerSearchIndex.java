@@ -0,0 +1,245 @@
+package org.home.sportshop.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.Customer;
+import org.home.sportshop.model.dto.CustomerSummary;
+import org.home.sportshop.repository.CustomerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Префиксный индекс клиентов в памяти для поиска по имени, телефону и email.
+ * Токены хранятся в упорядоченной ConcurrentSkipListMap, поэтому поиск по префиксу -
+ * это диапазон ключей, а не просмотр всей таблицы. Индекс строится при запуске
+ * и обновляется через CustomerService (после фиксации транзакции, если она есть).
+ */
+@Component
+public class CustomerSearchIndex {
+    private static final int BUILD_CHUNK_SIZE = 1000;
+    private static final Comparator<CustomerSummary> RESULT_ORDER = Comparator
+            .comparing((CustomerSummary c) -> c.getName() == null ? "" : c.getName().toLowerCase(Locale.ROOT))
+            .thenComparing(CustomerSummary::getId);
+
+    private final CustomerRepository customerRepository;
+    private final LoggingService logger = LoggingService.getInstance();
+
+    private final ConcurrentSkipListMap<String, Set<Long>> tokens = new ConcurrentSkipListMap<>();
+    private final Map<Long, CustomerSummary> summaries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> tokensById = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CustomerSearchIndex(CustomerRepository customerRepository) {
+        this.customerRepository = customerRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long started = System.currentTimeMillis();
+        long afterId = 0;
+        int indexed = 0;
+        while (true) {
+            List<CustomerSummary> chunk = customerRepository.findSummariesAfter(afterId, PageRequest.of(0, BUILD_CHUNK_SIZE));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            for (CustomerSummary summary : chunk) {
+                put(summary);
+            }
+            indexed += chunk.size();
+            afterId = chunk.get(chunk.size() - 1).getId();
+        }
+        logger.logInfo("Индекс поиска клиентов построен: " + indexed + " клиентов, " + tokens.size() + " токенов за "
+                + (System.currentTimeMillis() - started) + " мс");
+    }
+
+    /**
+     * Добавить или обновить клиента в индексе после фиксации текущей транзакции
+     */
+    public void index(Customer customer) {
+        CustomerSummary summary = CustomerSummary.fromCustomer(customer);
+        afterCommit(() -> put(summary));
+    }
+
+    /**
+     * Удалить клиента из индекса после фиксации текущей транзакции
+     */
+    public void remove(Long customerId) {
+        afterCommit(() -> delete(customerId));
+    }
+
+    /**
+     * Поиск клиентов: каждое слово запроса должно быть префиксом одного из токенов клиента
+     *
+     * @return Страница результатов, отсортированных по имени
+     */
+    public SearchResult search(String query, int page, int size) {
+        List<String> queryTokens = tokenizeQuery(query);
+        if (queryTokens.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        Set<Long> matches = null;
+        for (String token : queryTokens) {
+            Set<Long> tokenMatches = new HashSet<>();
+            NavigableMap<String, Set<Long>> range = tokens.subMap(token, true, token + Character.MAX_VALUE, false);
+            range.values().forEach(tokenMatches::addAll);
+            if (matches == null) {
+                matches = tokenMatches;
+            } else {
+                matches.retainAll(tokenMatches);
+            }
+            if (matches.isEmpty()) {
+                return new SearchResult(List.of(), 0);
+            }
+        }
+
+        // В памяти держатся только первые (page + 1) * size результатов: куча с худшим из них в вершине
+        int limit = (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE);
+        PriorityQueue<CustomerSummary> top = new PriorityQueue<>(Math.max(Math.min(limit, matches.size()), 1),
+                RESULT_ORDER.reversed());
+        int total = 0;
+        for (Long id : matches) {
+            CustomerSummary summary = summaries.get(id);
+            if (summary == null) {
+                continue;
+            }
+            total++;
+            if (top.size() < limit) {
+                top.add(summary);
+            } else if (limit > 0 && RESULT_ORDER.compare(summary, top.peek()) < 0) {
+                top.poll();
+                top.add(summary);
+            }
+        }
+
+        List<CustomerSummary> found = new ArrayList<>(top);
+        found.sort(RESULT_ORDER);
+        int from = (int) Math.min((long) page * size, found.size());
+        return new SearchResult(new ArrayList<>(found.subList(from, found.size())), total);
+    }
+
+    public int size() {
+        return summaries.size();
+    }
+
+    private synchronized void put(CustomerSummary summary) {
+        delete(summary.getId());
+        Set<String> customerTokens = tokenize(summary);
+        summaries.put(summary.getId(), summary);
+        tokensById.put(summary.getId(), customerTokens);
+        for (String token : customerTokens) {
+            tokens.computeIfAbsent(token, t -> ConcurrentHashMap.newKeySet()).add(summary.getId());
+        }
+    }
+
+    private synchronized void delete(Long customerId) {
+        summaries.remove(customerId);
+        Set<String> customerTokens = tokensById.remove(customerId);
+        if (customerTokens == null) {
+            return;
+        }
+        for (String token : customerTokens) {
+            tokens.computeIfPresent(token, (t, ids) -> {
+                ids.remove(customerId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Токены клиента: слова имени, email целиком и его части, цифры телефона
+     * (полностью и без кода страны, чтобы искать и по "8916...", и по "916...")
+     */
+    private static Set<String> tokenize(CustomerSummary summary) {
+        Set<String> result = new LinkedHashSet<>();
+        if (summary.getName() != null) {
+            for (String word : summary.getName().toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    result.add(word);
+                }
+            }
+        }
+        if (summary.getEmail() != null) {
+            String email = summary.getEmail().toLowerCase(Locale.ROOT);
+            result.add(email);
+            for (String part : email.split("[@.+_-]+")) {
+                if (!part.isEmpty()) {
+                    result.add(part);
+                }
+            }
+        }
+        if (summary.getPhone() != null) {
+            String digits = summary.getPhone().replaceAll("\\D", "");
+            if (!digits.isEmpty()) {
+                result.add(digits);
+                if (digits.length() > 10) {
+                    result.add(digits.substring(digits.length() - 10));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<String> tokenizeQuery(String query) {
+        if (query == null || query.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>();
+        for (String word : query.toLowerCase(Locale.ROOT).trim().split("\\s+")) {
+            // Телефон в запросе может быть записан со скобками и дефисами
+            String normalized = word.matches("[+()\\d-]+") ? word.replaceAll("\\D", "") : word;
+            if (!normalized.isEmpty()) {
+                result.add(normalized);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Страница результатов поиска
+     */
+    public static class SearchResult {
+        private final List<CustomerSummary> content;
+        private final long totalElements;
+
+        public SearchResult(List<CustomerSummary> content, long totalElements) {
+            this.content = content;
+            this.totalElements = totalElements;
+        }
+
+        public List<CustomerSummary> getContent() { return content; }
+        public long getTotalElements() { return totalElements; }
+    }
+}
@@ -6,24 +6,33 @@ import java.util.Optional;
 import org.home.sportshop.logging.LoggingService;
 import org.home.sportshop.model.Customer;
 import org.home.sportshop.model.User;
+import org.home.sportshop.model.dto.CustomerSummary;
 import org.home.sportshop.repository.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class CustomerService {
     private final CustomerRepository customerRepository;
+    private final UserOrdersCache userOrdersCache;
+    private final CustomerSearchIndex searchIndex;
     private final LoggingService logger = LoggingService.getInstance();
 
     @Autowired
-    public CustomerService(CustomerRepository customerRepository) {
+    public CustomerService(CustomerRepository customerRepository, UserOrdersCache userOrdersCache,
+                           CustomerSearchIndex searchIndex) {
         this.customerRepository = customerRepository;
+        this.userOrdersCache = userOrdersCache;
+        this.searchIndex = searchIndex;
         logger.logInfo("CustomerService инициализирован");
     }
 
-    public List<Customer> getAllCustomers() {
+    @Transactional(readOnly = true)
+    public List<CustomerSummary> getAllCustomers() {
         logger.logInfo("Запрос на получение всех клиентов");
-        List<Customer> customers = customerRepository.findAll();
+        List<CustomerSummary> customers = customerRepository.findAllSummaries();
         logger.logInfo("Получено клиентов: " + customers.size());
         return customers;
     }
@@ -47,20 +56,28 @@ public class CustomerService {
     public Customer addCustomer(Customer customer) {
         logger.logInfo("Добавление нового клиента: " + customer.getName());
         
-        // Проверка на дубликаты по email или телефону
-        if (customer.getEmail() != null && customerRepository.findByEmail(customer.getEmail()).isPresent()) {
-            String errorMessage = "Клиент с email " + customer.getEmail() + " уже существует";
+        // Проверка на дубликаты по email или телефону одним запросом
+        List<Customer> conflicts = customerRepository.findMatching(null, customer.getEmail(), customer.getPhone());
+        if (!conflicts.isEmpty()) {
+            boolean emailTaken = customer.getEmail() != null &&
+                    conflicts.stream().anyMatch(existing -> customer.getEmail().equals(existing.getEmail()));
+            String errorMessage = emailTaken
+                    ? "Клиент с email " + customer.getEmail() + " уже существует"
+                    : "Клиент с телефоном " + customer.getPhone() + " уже существует";
             logger.logError(errorMessage);
             throw new IllegalArgumentException(errorMessage);
         }
         
-        if (customer.getPhone() != null && customerRepository.findByPhone(customer.getPhone()).isPresent()) {
-            String errorMessage = "Клиент с телефоном " + customer.getPhone() + " уже существует";
+        Customer savedCustomer;
+        try {
+            savedCustomer = customerRepository.save(customer);
+        } catch (DataIntegrityViolationException e) {
+            // Клиент с тем же email или телефоном добавлен параллельным запросом
+            String errorMessage = "Клиент с email " + customer.getEmail() + " или телефоном " + customer.getPhone() + " уже существует";
             logger.logError(errorMessage);
             throw new IllegalArgumentException(errorMessage);
         }
-        
-        Customer savedCustomer = customerRepository.save(customer);
+        searchIndex.index(savedCustomer);
         logger.logInfo("Клиент успешно добавлен с ID: " + savedCustomer.getId());
         return savedCustomer;
     }
@@ -101,6 +118,9 @@ public class CustomerService {
         }
         
         Customer updatedCustomer = customerRepository.save(customer);
+        // Данные клиента входят в кэшированные списки заказов
+        userOrdersCache.invalidateAll();
+        searchIndex.index(updatedCustomer);
         logger.logInfo("Клиент с ID: " + id + " успешно обновлен");
         return updatedCustomer;
     }
@@ -111,6 +131,8 @@ public class CustomerService {
         
         try {
             customerRepository.delete(customer);
+            userOrdersCache.invalidateAll();
+            searchIndex.remove(id);
             logger.logInfo("Клиент с ID: " + id + " успешно удален");
         } catch (Exception e) {
             logger.logError("Ошибка при удалении клиента с ID: " + id + ": " + e.getMessage());
@@ -118,6 +140,16 @@ public class CustomerService {
         }
     }
 
+    /**
+     * Постраничный поиск клиентов по префиксам имени, телефона и email
+     */
+    public CustomerSearchIndex.SearchResult searchCustomers(String query, int page, int size) {
+        logger.logInfo("Поиск клиентов по запросу: " + query);
+        CustomerSearchIndex.SearchResult result = searchIndex.search(query, page, size);
+        logger.logInfo("Найдено клиентов: " + result.getTotalElements());
+        return result;
+    }
+
     /**
      * Получение клиента по email
      */
@@ -142,102 +174,116 @@ public class CustomerService {
 
     /**
      * Поиск или создание клиента на основе переданных данных.
-     * Приоритет отдается поиску по ID авторизованного пользователя.
-     * Если не найден по ID пользователя или пользователь анонимный,
-     * ищет по email/телефону из входных данных.
-     * Если не найден, создает нового клиента на основе входных данных.
+     * Поиск выполняется одним запросом по ID авторизованного пользователя, email и телефону;
+     * при нескольких совпадениях приоритет у клиента пользователя, затем у совпадения по email.
+     * Если клиент не найден, он создается вставкой INSERT ... ON CONFLICT DO NOTHING:
+     * при одновременном оформлении заказа проигравший запрос не получает ошибку
+     * уникальности, а находит клиента, созданного параллельно.
      *
      * @param customerInput Данные клиента из запроса (может быть null).
      * @param currentUser Текущий авторизованный пользователь (может быть null).
      * @return Существующий или новый клиент.
      * @throws IllegalArgumentException если невозможно определить или создать клиента.
      */
+    @Transactional
     public Customer findOrCreateCustomer(Customer customerInput, User currentUser) {
         // Безопасное логирование имени клиента из запроса
         String customerNameLog = (customerInput != null) ? customerInput.getName() : "[Нет данных клиента в запросе]";
         logger.logInfo("Поиск или создание клиента. Имя из запроса: " + customerNameLog);
 
-        // 1. Приоритет: Если пользователь авторизован, ищем его клиента по userId
-        if (currentUser != null) {
-            Optional<Customer> existingCustomerByUserId = getCustomerByUserId(currentUser.getId());
-            if (existingCustomerByUserId.isPresent()) {
-                Customer existing = existingCustomerByUserId.get();
-                logger.logInfo("Найден существующий клиент по userId: " + existing.getId() + " для пользователя " + currentUser.getUsername());
-                // TODO: Опционально - обновить данные существующего клиента (телефон, имя?) из customerInput, если они переданы
-                // if (customerInput != null && customerInput.getPhone() != null) { existing.setPhone(customerInput.getPhone()); /* ... */ customerRepository.save(existing); }
-                return existing;
-            }
-            // Если клиент по userId не найден, продолжаем поиск/создание ниже,
-            // но будем использовать currentUser для привязки нового клиента.
-            logger.logInfo("Клиент для пользователя " + currentUser.getUsername() + " не найден по userId, продолжаем поиск/создание.");
-        } else {
-             logger.logInfo("Пользователь не авторизован, поиск/создание клиента по данным из запроса.");
-        }
-
-        // 2. Если клиент не найден по userId (или пользователь анонимный), используем данные из запроса (customerInput)
-        if (customerInput != null) {
-            // Поиск по email из запроса
-            if (customerInput.getEmail() != null && !customerInput.getEmail().isEmpty()) {
-                Optional<Customer> existingCustomerByEmail = getCustomerByEmail(customerInput.getEmail());
-                if (existingCustomerByEmail.isPresent()) {
-                    Customer existing = existingCustomerByEmail.get();
-                    logger.logInfo("Найден существующий клиент по email из запроса: " + existing.getId());
-                    // Если пользователь авторизован и найденный клиент не связан, связываем
-                    if (currentUser != null && existing.getUser() == null) {
-                        existing.setUser(currentUser);
-                        customerRepository.save(existing);
-                        logger.logInfo("Существующий клиент (по email) " + existing.getId() + " связан с пользователем " + currentUser.getId());
-                    }
-                     // TODO: Опционально - обновить данные существующего клиента (телефон, имя?)
-                    return existing;
-                }
-            }
-
-            // Поиск по телефону из запроса (если по email не найден)
-            if (customerInput.getPhone() != null && !customerInput.getPhone().isEmpty()) {
-                 Optional<Customer> existingCustomerByPhone = customerRepository.findByPhone(customerInput.getPhone());
-                 if (existingCustomerByPhone.isPresent()) {
-                     Customer existing = existingCustomerByPhone.get();
-                      logger.logInfo("Найден существующий клиент по телефону из запроса: " + existing.getId());
-                      // Если пользователь авторизован и найденный клиент не связан, связываем
-                     if (currentUser != null && existing.getUser() == null) {
-                         existing.setUser(currentUser);
-                         customerRepository.save(existing);
-                         logger.logInfo("Существующий клиент (по телефону) " + existing.getId() + " связан с пользователем " + currentUser.getId());
-                     }
-                      // TODO: Опционально - обновить данные существующего клиента (email, имя?)
-                     return existing;
-                 }
-            }
-
-            // 3. Если не найден ни по userId, ни по email/телефону из запроса - создаем нового клиента
-            logger.logInfo("Существующий клиент не найден. Создание нового клиента на основе данных из запроса.");
-
-             // Проверка наличия обязательных полей для создания
-             if (customerInput.getName() == null || customerInput.getName().isEmpty() ||
-                 customerInput.getPhone() == null || customerInput.getPhone().isEmpty() ||
-                 customerInput.getEmail() == null || customerInput.getEmail().isEmpty()) {
-                 logger.logError("Недостаточно данных для создания нового клиента: имя=" + customerInput.getName() + ", телефон=" + customerInput.getPhone() + ", email=" + customerInput.getEmail());
-                 throw new IllegalArgumentException("Недостаточно данных для создания нового клиента (требуется имя, телефон, email).");
-             }
-
-            // Связываем с текущим пользователем, если он авторизован
-            if (currentUser != null) {
-                customerInput.setUser(currentUser);
-                 logger.logInfo("Новый клиент будет связан с пользователем " + currentUser.getUsername());
-            }
+        Long userId = currentUser != null ? currentUser.getId() : null;
+        String email = customerInput != null ? emptyToNull(customerInput.getEmail()) : null;
+        String phone = customerInput != null ? emptyToNull(customerInput.getPhone()) : null;
 
-            // Сохраняем нового клиента
-            Customer savedCustomer = customerRepository.save(customerInput);
-            logger.logInfo("Новый клиент успешно создан с ID: " + savedCustomer.getId());
-            return savedCustomer;
+        // 1. Один запрос по всем признакам: ID пользователя, email, телефон
+        Optional<Customer> existing = findBestMatch(userId, email, phone);
+        if (existing.isPresent()) {
+            return linkToUser(existing.get(), currentUser);
+        }
 
-        } else {
+        if (customerInput == null) {
             // Сюда мы попадаем, если:
             // 1. Пользователь анонимный ИЛИ авторизованный пользователь без связанного клиента
             // 2. И при этом фронтенд НЕ ПЕРЕДАЛ customerInput в запросе
             logger.logError("Критическая ошибка: Невозможно определить или создать клиента. Нет данных в запросе и/или не найден клиент для пользователя.");
             throw new IllegalArgumentException("Невозможно определить или создать клиента: отсутствуют необходимые данные.");
         }
+
+        // 2. Клиент не найден - создаем нового клиента
+        logger.logInfo("Существующий клиент не найден. Создание нового клиента на основе данных из запроса.");
+
+        // Проверка наличия обязательных полей для создания
+        if (customerInput.getName() == null || customerInput.getName().isEmpty() || phone == null || email == null) {
+            logger.logError("Недостаточно данных для создания нового клиента: имя=" + customerInput.getName() + ", телефон=" + customerInput.getPhone() + ", email=" + customerInput.getEmail());
+            throw new IllegalArgumentException("Недостаточно данных для создания нового клиента (требуется имя, телефон, email).");
+        }
+
+        List<Long> insertedIds = customerRepository.insertIfAbsent(customerInput.getName(), phone, email, userId);
+        if (!insertedIds.isEmpty()) {
+            customerInput.setId(insertedIds.get(0));
+            customerInput.setUser(currentUser);
+            searchIndex.index(customerInput);
+            logger.logInfo("Новый клиент успешно создан с ID: " + customerInput.getId());
+            return customerInput;
+        }
+
+        // 3. Конфликт уникальности: клиент с таким email или телефоном создан параллельным запросом
+        logger.logInfo("Клиент с email " + email + " или телефоном " + phone + " создан параллельно, повторный поиск");
+        return findBestMatch(userId, email, phone)
+                .map(customer -> linkToUser(customer, currentUser))
+                .orElseThrow(() -> {
+                    String errorMessage = "Не удалось создать клиента: конфликт данных email/телефона";
+                    logger.logError(errorMessage);
+                    return new IllegalArgumentException(errorMessage);
+                });
+    }
+
+    /**
+     * Лучшее совпадение из единого запроса: клиент пользователя, затем по email, затем по телефону
+     */
+    private Optional<Customer> findBestMatch(Long userId, String email, String phone) {
+        if (userId == null && email == null && phone == null) {
+            return Optional.empty();
+        }
+        List<Customer> candidates = customerRepository.findMatching(userId, email, phone);
+        if (candidates.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Customer byEmail = null;
+        Customer byPhone = null;
+        for (Customer candidate : candidates) {
+            if (userId != null && candidate.getUser() != null && userId.equals(candidate.getUser().getId())) {
+                logger.logInfo("Найден существующий клиент по userId: " + candidate.getId());
+                return Optional.of(candidate);
+            }
+            if (email != null && email.equals(candidate.getEmail())) {
+                byEmail = candidate;
+            } else if (phone != null && phone.equals(candidate.getPhone())) {
+                byPhone = candidate;
+            }
+        }
+        Customer match = byEmail != null ? byEmail : byPhone;
+        logger.logInfo("Найден существующий клиент по " + (byEmail != null ? "email" : "телефону") + " из запроса: " + match.getId());
+        return Optional.of(match);
+    }
+
+    /**
+     * Если пользователь авторизован и найденный клиент не связан, связываем
+     */
+    private Customer linkToUser(Customer customer, User currentUser) {
+        if (currentUser != null && customer.getUser() == null) {
+            customer.setUser(currentUser);
+            customerRepository.save(customer);
+            // Заказы клиента теперь входят в список заказов пользователя
+            userOrdersCache.invalidate(currentUser.getId());
+            searchIndex.index(customer);
+            logger.logInfo("Существующий клиент " + customer.getId() + " связан с пользователем " + currentUser.getId());
+        }
+        return customer;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package org.home.sportshop.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.home.sportshop.logging.LoggingService;
+import org.home.sportshop.model.Order;
+import org.home.sportshop.model.OrderItem;
+import org.home.sportshop.model.dto.OrderResponse;
+import org.home.sportshop.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Потоковая запись списка заказов в JSON-массив: заказы читаются курсором и пишутся в ответ
+ * по одному, без списка всех заказов в памяти. Контекст персистентности периодически очищается,
+ * поэтому память на запрос не растет с числом заказов.
+ */
+@Component
+public class OrderListWriter {
+    private static final int CLEAR_EVERY = 500;
+
+    private final OrderRepository orderRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final LoggingService logger = LoggingService.getInstance();
+
+    @Autowired
+    public OrderListWriter(OrderRepository orderRepository, EntityManager entityManager, ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Записать все заказы в поток; поток не закрывается
+     *
+     * @return Количество записанных заказов
+     */
+    public long writeAll(OutputStream output) {
+        long started = System.currentTimeMillis();
+        Long written = readOnlyTransaction.execute(status -> {
+            try (Stream<Object[]> rows = orderRepository.streamAllWithItems();
+                 JsonGenerator generator = objectMapper.createGenerator(output)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+
+                long count = 0;
+                int read = 0;
+                Order current = null;
+                List<OrderItem> items = new ArrayList<>();
+                Iterator<Object[]> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    Object[] row = iterator.next();
+                    Order order = (Order) row[0];
+                    if (current != null && !current.getId().equals(order.getId())) {
+                        generator.writeObject(OrderResponse.fromOrder(current, items));
+                        count++;
+                        items = new ArrayList<>();
+                    }
+                    if (current == null || !current.getId().equals(order.getId())) {
+                        current = order;
+                    }
+                    if (row[1] != null) {
+                        items.add((OrderItem) row[1]);
+                    }
+                    // Уже прочитанные заказ и позиции остаются пригодными для преобразования после отсоединения
+                    if (++read % CLEAR_EVERY == 0) {
+                        entityManager.clear();
+                    }
+                }
+                if (current != null) {
+                    generator.writeObject(OrderResponse.fromOrder(current, items));
+                    count++;
+                }
+
+                generator.writeEndArray();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        logger.logInfo("Записано заказов: " + written + " за " + (System.currentTimeMillis() - started) + " мс");
+        return written != null ? written : 0;
+    }
+}
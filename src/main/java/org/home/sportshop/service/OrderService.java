@@ -1,23 +1,34 @@
 package org.home.sportshop.service;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.home.sportshop.delivery.DeliveryService;
+import org.home.sportshop.inventory.InventoryService;
 import org.home.sportshop.logging.LoggingService;
 import org.home.sportshop.model.Customer;
 import org.home.sportshop.model.Order;
 import org.home.sportshop.model.OrderItem;
 import org.home.sportshop.model.Product;
 import org.home.sportshop.model.User;
+import org.home.sportshop.model.dto.OrderResponse;
 import org.home.sportshop.notifications.OrderNotificationService;
 import org.home.sportshop.repository.CustomerRepository;
 import org.home.sportshop.repository.OrderRepository;
 import org.home.sportshop.repository.ProductRepository;
 import org.home.sportshop.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class OrderService {
@@ -26,20 +37,47 @@ public class OrderService {
     private final CustomerRepository customerRepository;
     private final UserRepository userRepository;
     private final OrderNotificationService notificationService;
+    private final DeliveryService deliveryService;
+    private final UserOrdersCache userOrdersCache;
+    private final InventoryService inventoryService;
+    private final OrderListWriter orderListWriter;
     private final LoggingService logger = LoggingService.getInstance();
 
     @Autowired
     public OrderService(OrderRepository orderRepository, ProductRepository productRepository,
                         CustomerRepository customerRepository, UserRepository userRepository,
-                        OrderNotificationService notificationService) {
+                        OrderNotificationService notificationService, DeliveryService deliveryService,
+                        UserOrdersCache userOrdersCache, InventoryService inventoryService,
+                        OrderListWriter orderListWriter) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
         this.customerRepository = customerRepository;
         this.userRepository = userRepository;
         this.notificationService = notificationService;
+        this.deliveryService = deliveryService;
+        this.userOrdersCache = userOrdersCache;
+        this.inventoryService = inventoryService;
+        this.orderListWriter = orderListWriter;
         logger.logInfo("OrderService инициализирован");
     }
 
+    /**
+     * Общий вес позиций заказа в кг по весу товаров; товары без указанного веса не учитываются
+     */
+    public double calculateOrderWeight(List<OrderItem> orderItems) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderItem item : orderItems) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        double weight = 0;
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            if (product.getWeight() != null) {
+                weight += product.getWeight() * quantities.get(product.getId());
+            }
+        }
+        return weight;
+    }
+
     @Transactional
     public Order createOrder(Customer customer, List<OrderItem> orderItems) {
         return createOrder(customer, orderItems, null, null, null);
@@ -72,6 +110,7 @@ public class OrderService {
         order.setPaymentMethodId(paymentMethodId);
         
         BigDecimal totalPrice = BigDecimal.ZERO;
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (OrderItem item : orderItems) {
             if (item.getProduct() == null || item.getProduct().getId() == null) {
                 logger.logError("Ошибка в товаре заказа: отсутствует информация о продукте.");
@@ -96,23 +135,37 @@ public class OrderService {
             item.setProductImageUrl(product.getImageUrl());
             
             item.setOrder(order);
+            quantities.merge(product.getId(), item.getQuantity(), Integer::sum);
             totalPrice = totalPrice.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
         }
         order.setTotalPrice(totalPrice);
+        
+        // Резервируем товары (резерв в памяти снимается автоматически при откате транзакции)
+        inventoryService.reserve(quantities);
+        
+        // Резервируем слот доставки (освобождается автоматически при откате транзакции)
+        if (deliveryMethodId != null) {
+            order.setDeliverySlot(deliveryService.reserveSlot(deliveryMethodId));
+        }
+        
         order.setStatus("CREATED");
         order.setCreatedAt(LocalDateTime.now());
         order.setOrderItems(orderItems);
         
         Order savedOrder = orderRepository.save(order);
+        inventoryService.recordReservations(savedOrder.getId(), quantities);
         logger.logInfo("Заказ успешно создан с ID: " + savedOrder.getId() + ", общая сумма: " + totalPrice);
         return savedOrder;
     }
 
-    public List<Order> getAllOrders() {
+    /**
+     * Все заказы JSON-массивом в поток: заказы читаются курсором и записываются по одному
+     *
+     * @return Количество записанных заказов
+     */
+    public long writeAllOrders(OutputStream output) {
         logger.logInfo("Запрос на получение всех заказов");
-        List<Order> orders = orderRepository.findAll();
-        logger.logInfo("Получено заказов: " + orders.size());
-        return orders;
+        return orderListWriter.writeAll(output);
     }
     
     public List<Order> getOrdersByUsername(String username) {
@@ -136,9 +189,31 @@ public class OrderService {
         return orders;
     }
 
+    /**
+     * Страница заказов пользователя по ID из токена, уже преобразованная в DTO.
+     * Преобразование выполняется внутри транзакции, позиции заказов догружаются пакетно.
+     */
+    @Transactional(readOnly = true)
+    public UserOrdersCache.CachedPage getUserOrdersPage(Long userId, int page, int size) {
+        logger.logInfo("Запрос страницы " + page + " заказов пользователя с ID: " + userId);
+        Page<Order> orders = orderRepository.findPageByUserId(userId,
+                PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt", "id")));
+        List<OrderResponse> content = orders.getContent().stream()
+                .map(OrderResponse::fromOrder)
+                .toList();
+        logger.logInfo("Получено " + content.size() + " из " + orders.getTotalElements() + " заказов пользователя с ID: " + userId);
+        return new UserOrdersCache.CachedPage(content, orders.getTotalElements(), orders.getTotalPages());
+    }
+
+    /**
+     * Смена статуса заказа. При отмене слот доставки снимается с заказа в той же транзакции
+     * и освобождается после фиксации, поэтому повторная отмена не освобождает его второй раз.
+     * Наблюдатели уведомляются после фиксации.
+     */
+    @Transactional
     public Order updateOrderStatus(Long id, String status) {
         logger.logInfo("Обновление статуса заказа с ID: " + id + " на: " + status);
-        Order order = orderRepository.findById(id).orElseThrow(() -> {
+        Order order = orderRepository.findWithItemsById(id).orElseThrow(() -> {
             String errorMessage = "Order not found with id: " + id;
             logger.logError(errorMessage);
             return new RuntimeException(errorMessage);
@@ -146,22 +221,46 @@ public class OrderService {
         
         String oldStatus = order.getStatus();
         order.setStatus(status);
-        Order updatedOrder = orderRepository.save(order);
+        
+        String slot = order.getDeliverySlot();
+        if ("CANCELLED".equals(status) && !"CANCELLED".equals(oldStatus) && slot != null) {
+            boolean claimed = orderRepository.clearDeliverySlot(id, slot) == 1;
+            order.setDeliverySlot(null);
+            if (claimed) {
+                Long deliveryMethodId = order.getDeliveryMethodId();
+                afterCommit(() -> deliveryService.releaseSlot(deliveryMethodId, slot));
+            }
+        }
         
         logger.logInfo("Статус заказа с ID: " + id + " успешно обновлен с " + oldStatus + " на " + status);
-        notificationService.notifyOrderStatusChanged(updatedOrder, oldStatus, status);
+        afterCommit(() -> notificationService.notifyOrderStatusChanged(order, oldStatus, status));
         
-        return updatedOrder;
+        return order;
     }
 
     public void deleteOrder(Long id) {
         logger.logWarning("Удаление заказа с ID: " + id);
         try {
             orderRepository.deleteById(id);
+            // Владелец удаленного заказа неизвестен без дополнительного запроса, поэтому сбрасывается весь кэш
+            userOrdersCache.invalidateAll();
             logger.logInfo("Заказ с ID: " + id + " успешно удален");
         } catch (Exception e) {
             logger.logError("Ошибка при удалении заказа с ID: " + id + ": " + e.getMessage());
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
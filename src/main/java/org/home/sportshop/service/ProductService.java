@@ -1,31 +1,65 @@
 package org.home.sportshop.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import org.home.sportshop.catalog.BulkProductUpdater;
+import org.home.sportshop.catalog.CatalogChangeFeed;
+import org.home.sportshop.catalog.ProductChangeListener;
+import org.home.sportshop.catalog.ProductImporter;
+import org.home.sportshop.catalog.ProductSearchIndex;
+import org.home.sportshop.inventory.InventoryService;
 import org.home.sportshop.logging.LoggingService;
 import org.home.sportshop.model.Product;
+import org.home.sportshop.model.dto.BulkProductUpdateRequest;
+import org.home.sportshop.model.dto.CatalogChanges;
+import org.home.sportshop.model.dto.ImportReport;
+import org.home.sportshop.model.dto.ProductResponse;
 import org.home.sportshop.repository.OrderItemRepository;
 import org.home.sportshop.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class ProductService {
     private final ProductRepository productRepository;
     private final OrderItemRepository orderItemRepository;
+    private final List<ProductChangeListener> changeListeners;
+    private final ProductSearchIndex searchIndex;
+    private final CatalogChangeFeed changeFeed;
+    private final ProductImporter productImporter;
+    private final BulkProductUpdater bulkUpdater;
+    private final InventoryService inventoryService;
     private final LoggingService logger = LoggingService.getInstance();
 
     @Autowired
-    public ProductService(ProductRepository productRepository, OrderItemRepository orderItemRepository) {
+    public ProductService(ProductRepository productRepository, OrderItemRepository orderItemRepository,
+                          List<ProductChangeListener> changeListeners, ProductSearchIndex searchIndex,
+                          CatalogChangeFeed changeFeed, ProductImporter productImporter,
+                          BulkProductUpdater bulkUpdater, InventoryService inventoryService) {
         this.productRepository = productRepository;
         this.orderItemRepository = orderItemRepository;
+        this.changeListeners = changeListeners;
+        this.searchIndex = searchIndex;
+        this.changeFeed = changeFeed;
+        this.productImporter = productImporter;
+        this.bulkUpdater = bulkUpdater;
+        this.inventoryService = inventoryService;
         logger.logInfo("ProductService инициализирован");
     }
 
-    public List<Product> getAllProducts() {
+    @Transactional(readOnly = true)
+    public List<ProductResponse> getAllProducts() {
         logger.logInfo("Запрос на получение всех продуктов");
-        List<Product> products = productRepository.findAll(Sort.by(Sort.Direction.DESC, "updatedAt"));
+        List<ProductResponse> products = productRepository.findAllResponses();
         logger.logInfo("Получено продуктов: " + products.size());
         return products;
     }
@@ -33,29 +67,75 @@ public class ProductService {
     public Product addProduct(Product product) {
         logger.logInfo("Добавление нового продукта: " + product.getName());
         Product savedProduct = productRepository.save(product);
+        notifyListeners(listener -> listener.onProductCreated(savedProduct));
         logger.logInfo("Продукт успешно добавлен с ID: " + savedProduct.getId());
         return savedProduct;
     }
 
+    /**
+     * Строка товара блокируется до фиксации, поэтому разница остатков считается от актуального значения;
+     * счетчик остатков и слушатели обновляются после фиксации
+     */
+    @Transactional
     public Product updateProduct(Long id, Product productDetails) {
         logger.logInfo("Обновление продукта с ID: " + id);
-        Product product = productRepository.findById(id).orElseThrow(() -> {
+        Product product = productRepository.findByIdForUpdate(id).orElseThrow(() -> {
             String errorMessage = "Продукт с ID: " + id + " не найден";
             logger.logError(errorMessage);
             return new RuntimeException(errorMessage);
         });
         
+        int oldStock = product.getStock() != null ? product.getStock() : 0;
         product.setName(productDetails.getName());
         product.setPrice(productDetails.getPrice());
         product.setDescription(productDetails.getDescription());
         product.setImageUrl(productDetails.getImageUrl());
         product.setStock(productDetails.getStock());
+        product.setWeight(productDetails.getWeight());
         
         Product updatedProduct = productRepository.save(product);
+        int newStock = updatedProduct.getStock() != null ? updatedProduct.getStock() : 0;
+        inventoryService.adjustStock(Map.of(id, newStock - oldStock));
+        notifyListeners(listener -> listener.onProductSaved(updatedProduct));
         logger.logInfo("Продукт с ID: " + id + " успешно обновлен");
         return updatedProduct;
     }
 
+    /**
+     * Массовый импорт товаров из потока CSV или NDJSON; производные структуры каталога
+     * перестраиваются один раз по окончании импорта, в том числе прерванного, если часть
+     * порций уже зафиксирована
+     */
+    public ImportReport importProducts(InputStream input, String format) throws IOException {
+        logger.logInfo("Импорт товаров, формат: " + format);
+        ImportReport report = productImporter.createReport(format);
+        try {
+            return productImporter.importProducts(input, report, inventoryService::adjustStock);
+        } finally {
+            if (report.getInserted() + report.getUpdated() > 0) {
+                notifyListeners(ProductChangeListener::onCatalogChanged);
+            }
+        }
+    }
+
+    /**
+     * Массовое изменение цен и остатков; производные структуры каталога обновляются один раз,
+     * в том числе после прерванного изменения, если часть порций уже зафиксирована
+     */
+    public BulkProductUpdater.Result bulkUpdateProducts(BulkProductUpdateRequest request) {
+        logger.logInfo("Массовое изменение товаров");
+        BulkProductUpdater.Result result = null;
+        try {
+            result = bulkUpdater.apply(request, inventoryService::adjustStock);
+            return result;
+        } finally {
+            if (result != null && result.getUpdated() > 0) {
+                notifyListeners(ProductChangeListener::onCatalogChanged);
+            }
+        }
+    }
+
+    @Transactional
     public void deleteProduct(Long id) {
         logger.logWarning("Удаление продукта с ID: " + id);
         Product product = getProductById(id);
@@ -68,6 +148,8 @@ public class ProductService {
         }
         
         productRepository.delete(product);
+        changeFeed.recordDeletion(id);
+        notifyListeners(listener -> listener.onProductDeleted(id));
         logger.logInfo("Продукт с ID: " + id + " успешно удален");
     }
 
@@ -86,4 +168,55 @@ public class ProductService {
             throw e;
         }
     }
+
+    /**
+     * Полнотекстовый поиск по названию и описанию с фильтрами по цене и наличию
+     */
+    public ProductSearchIndex.SearchResult searchProducts(String query, BigDecimal minPrice, BigDecimal maxPrice,
+                                                          Boolean inStock, int page, int size) {
+        ProductSearchIndex.SearchResult result = searchIndex.search(query, minPrice, maxPrice, inStock, page, size);
+        logger.logInfo("Поиск продуктов по запросу '" + query + "': найдено " + result.getTotalElements());
+        return result;
+    }
+
+    public CatalogChanges getCatalogChanges(LocalDateTime since, Long afterId, Long deletionsAfter, int limit) {
+        CatalogChanges changes = changeFeed.getChanges(since, afterId, deletionsAfter, limit);
+        logger.logInfo("Изменения каталога после " + since + ": товаров " + changes.getProducts().size()
+                + ", удалений " + changes.getDeleted().size());
+        return changes;
+    }
+
+    /**
+     * Свободный остаток товара: stock за вычетом действующих резервов заказов; null, если товара нет
+     */
+    public Integer getAvailableStock(Long id) {
+        return inventoryService.getAvailable(id);
+    }
+
+    public List<String> autocompleteProducts(String prefix, int limit) {
+        return searchIndex.autocomplete(prefix, limit);
+    }
+
+    /**
+     * Оповещение слушателей каталога; внутри транзакции - только после ее фиксации
+     */
+    private void notifyListeners(Consumer<ProductChangeListener> action) {
+        Runnable notification = () -> changeListeners.forEach(listener -> {
+            try {
+                action.accept(listener);
+            } catch (Exception e) {
+                logger.logError("Ошибка слушателя изменений каталога " + listener.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        });
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notification.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                notification.run();
+            }
+        });
+    }
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package org.home.sportshop.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.home.sportshop.datasource.ReadYourWritesTracker;
+import org.home.sportshop.model.Customer;
+import org.home.sportshop.model.dto.OrderResponse;
+import org.home.sportshop.notifications.OrderEvent;
+import org.home.sportshop.notifications.OrderObserver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Кэш готовых страниц списка заказов пользователя (GET /orders/my).
+ * Ключ - ID пользователя; записи пользователя сбрасываются по любому событию его заказов.
+ * Число пользователей ограничено: при переполнении вытесняется тот, к чьим страницам дольше всего не обращались.
+ * Счетчик поколений не дает сохранить в кэш страницу, загруженную до сброса.
+ * Сброс также открывает окно чтения своих записей: следующая загрузка идет с основной базы, а не с реплики.
+ */
+@Component
+public class UserOrdersCache implements OrderObserver {
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    /**
+     * Пользователи в порядке последнего обращения; доступ только под блокировкой самой карты
+     */
+    private final Map<Long, UserPages> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, UserPages> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    @Value("${orders.my.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${orders.my.cache.max-users:10000}")
+    private int maxUsers;
+
+    @Autowired
+    public UserOrdersCache(ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    /**
+     * Страница из кэша или загруженная через loader
+     */
+    public CachedPage getOrLoad(Long userId, int page, int size, Supplier<CachedPage> loader) {
+        UserPages userPages;
+        synchronized (cache) {
+            userPages = cache.computeIfAbsent(userId, id -> new UserPages());
+        }
+        String pageKey = page + ":" + size;
+        long now = System.currentTimeMillis();
+
+        CachedPage cached = userPages.pages.get(pageKey);
+        if (cached != null && cached.expiresAt > now) {
+            return cached;
+        }
+
+        long generation = userPages.generation;
+        CachedPage loaded = loader.get();
+        loaded.expiresAt = now + ttlSeconds * 1000;
+        synchronized (userPages) {
+            if (userPages.generation == generation) {
+                userPages.pages.put(pageKey, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(Long userId) {
+        readYourWritesTracker.recordWrite(userId);
+        UserPages userPages;
+        synchronized (cache) {
+            userPages = cache.get(userId);
+        }
+        if (userPages != null) {
+            synchronized (userPages) {
+                userPages.generation++;
+                userPages.pages.clear();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        List<UserPages> snapshot;
+        synchronized (cache) {
+            snapshot = new ArrayList<>(cache.values());
+        }
+        snapshot.forEach(userPages -> {
+            synchronized (userPages) {
+                userPages.generation++;
+                userPages.pages.clear();
+            }
+        });
+    }
+
+    @Override
+    public void update(OrderEvent event) {
+        Customer customer = event.getOrder().getCustomer();
+        if (customer != null && customer.getUser() != null) {
+            invalidate(customer.getUser().getId());
+        }
+    }
+
+    private static final class UserPages {
+        private final Map<String, CachedPage> pages = new ConcurrentHashMap<>();
+        private volatile long generation;
+    }
+
+    /**
+     * Готовая страница заказов
+     */
+    public static class CachedPage {
+        private final List<OrderResponse> content;
+        private final long totalElements;
+        private final int totalPages;
+        private volatile long expiresAt;
+
+        public CachedPage(List<OrderResponse> content, long totalElements, int totalPages) {
+            this.content = content;
+            this.totalElements = totalElements;
+            this.totalPages = totalPages;
+        }
+
+        public List<OrderResponse> getContent() { return content; }
+        public long getTotalElements() { return totalElements; }
+        public int getTotalPages() { return totalPages; }
+    }
+}
@@ -0,0 +1,10 @@
+-- Частичные уникальные индексы журнала платежей (Hibernate ddl-auto их не создает).
+-- Однократная миграция существующей базы - db/migrations/001_payment_ledger_outcome_rows.sql
+
+-- Не больше одного успешного списания по заказу
+CREATE UNIQUE INDEX IF NOT EXISTS uk_payment_ledger_order_succeeded
+    ON payment_ledger (order_id) WHERE status = 'SUCCEEDED';
+
+-- Не больше одного окончательного исхода у попытки (ответ шлюза и ручная сверка не запишут оба)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_payment_ledger_attempt_outcome
+    ON payment_ledger (order_id, attempt) WHERE status IN ('SUCCEEDED', 'FAILED');
@@ -0,0 +1,187 @@
+package org.home.sportshop.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.home.sportshop.model.Product;
+import org.home.sportshop.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Стемминг и префиксный поиск, инкрементальные изменения во время фоновой перестройки поискового индекса
+ */
+class ProductSearchIndexTest {
+    private final CountDownLatch streamStarted = new CountDownLatch(1);
+    private final CountDownLatch resumeStream = new CountDownLatch(1);
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor();
+    private ProductSearchIndex index;
+
+    @AfterEach
+    void tearDown() {
+        rebuilder.shutdownNow();
+        if (index != null) {
+            index.shutdown();
+        }
+    }
+
+    @Test
+    void rebuildKeepsChangesMadeWhileCatalogIsRead() throws Exception {
+        Product ball = product(1L, "Мяч футбольный");
+        Product racket = product(2L, "Ракетка теннисная");
+        index = new ProductSearchIndex(repository(List.of(ball, racket)), entityManager(), new NoOpTransactionManager());
+
+        Future<?> rebuild = rebuilder.submit(index::rebuild);
+        assertTrue(streamStarted.await(2, TimeUnit.SECONDS));
+
+        // Каталог уже читается: новый товар создан, ракетка удалена, мяч переименован
+        index.onProductSaved(product(3L, "Палатка туристическая"));
+        index.onProductDeleted(2L);
+        index.onProductSaved(product(1L, "Мяч баскетбольный"));
+        resumeStream.countDown();
+        rebuild.get(2, TimeUnit.SECONDS);
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(3L), ids("палатка"));
+        assertEquals(List.of(), ids("ракетка"));
+        assertEquals(List.of(1L), ids("баскетбольный"));
+        assertEquals(List.of(), ids("футбольный"));
+    }
+
+    @Test
+    void changesAfterRebuildAreAppliedToNewIndex() throws Exception {
+        index = new ProductSearchIndex(repository(List.of(product(1L, "Мяч футбольный"))), entityManager(),
+                new NoOpTransactionManager());
+        resumeStream.countDown();
+        index.rebuild();
+
+        index.onProductSaved(product(2L, "Палатка туристическая"));
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(2L), ids("палатка"));
+    }
+
+    @Test
+    void findsWordFormsThroughStems() throws Exception {
+        buildIndex(product(1L, "Мяч футбольный"), product(2L, "Running shoes"));
+
+        assertEquals(List.of(1L), ids("мячи"));
+        assertEquals(List.of(1L), ids("футбольные"));
+        assertEquals(List.of(2L), ids("shoe"));
+        assertEquals(List.of(2L), ids("shoes running"));
+    }
+
+    @Test
+    void lastWordMatchesAsPrefixOfSurfaceWord() throws Exception {
+        buildIndex(product(1L, "Running shoes", "Cushioned sole"), product(2L, "Runner backpack", "Waterproof"));
+
+        // Префиксы длиннее основы: "runni" и "cushione" не являются префиксами основ "runn" и "cushion"
+        assertEquals(List.of(1L), ids("runni"));
+        assertEquals(List.of(1L), ids("shoes cushione"));
+        assertEquals(List.of(1L, 2L), sorted(ids("runn")));
+        assertEquals(List.of(2L), ids("waterpro"));
+        // Префикс раскрывается только у последнего слова
+        assertEquals(List.of(), ids("runni shoes"));
+    }
+
+    @Test
+    void prefixExpansionForgetsRemovedProducts() throws Exception {
+        buildIndex(product(1L, "Running shoes"));
+
+        index.onProductDeleted(1L);
+        index.onProductSaved(product(2L, "Runner backpack"));
+
+        assertEquals(List.of(), ids("runni"));
+        assertEquals(List.of(2L), ids("runne"));
+    }
+
+    private void buildIndex(Product... catalog) {
+        index = new ProductSearchIndex(repository(List.of(catalog)), entityManager(), new NoOpTransactionManager());
+        resumeStream.countDown();
+        index.rebuild();
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        return ids.stream().sorted().collect(Collectors.toList());
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, null, null, null, 0, 20).getContent().stream()
+                .map(ProductSearchIndex.Hit::getId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Репозиторий, чей потоковый запрос останавливается после первого товара до сигнала теста
+     */
+    private ProductRepository repository(List<Product> catalog) {
+        return (ProductRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {ProductRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("streamAll")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return Stream.iterate(0, i -> i < catalog.size(), i -> i + 1).map(i -> {
+                        if (i == 1) {
+                            streamStarted.countDown();
+                            try {
+                                resumeStream.await(2, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        return catalog.get(i);
+                    });
+                });
+    }
+
+    private static EntityManager entityManager() {
+        return (EntityManager) Proxy.newProxyInstance(ProductSearchIndexTest.class.getClassLoader(),
+                new Class<?>[] {EntityManager.class}, (proxy, method, args) -> null);
+    }
+
+    private static Product product(Long id, String name) {
+        return product(id, name, null);
+    }
+
+    private static Product product(Long id, String name, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(BigDecimal.valueOf(1000));
+        product.setStock(5);
+        return product;
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.home.sportshop.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Маршрутизация чтения и записи на двух отдельных PostgreSQL: в каждой базе таблица node
+ * хранит имя узла, поэтому по результату запроса видно, куда он ушел
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ReadWriteRoutingDataSourceTest {
+    private static final String IMAGE = "postgres:16-alpine";
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    @Container
+    private static final PostgreSQLContainer<?> PRIMARY_DB = new PostgreSQLContainer<>(IMAGE);
+
+    @Container
+    private static final PostgreSQLContainer<?> REPLICA_DB = new PostgreSQLContainer<>(IMAGE);
+
+    private HikariDataSource primaryPool;
+    private HikariDataSource replicaPool;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        prepareNode(PRIMARY_DB, PRIMARY);
+        prepareNode(REPLICA_DB, REPLICA);
+        primaryPool = pool(PRIMARY_DB, PRIMARY);
+        replicaPool = pool(REPLICA_DB, REPLICA);
+        replicaPool.setReadOnly(true);
+
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker();
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+        ReflectionTestUtils.setField(tracker, "windowMs", 60000L);
+        LazyConnectionDataSourceProxy dataSource =
+                new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryPool, replicaPool, tracker));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        primaryPool.close();
+        replicaPool.close();
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplica() {
+        assertEquals(REPLICA, readNode());
+    }
+
+    @Test
+    void writeTransactionGoesToPrimary() {
+        String node = writeTransaction().execute(status -> {
+            jdbcTemplate.update("INSERT INTO probe (value) VALUES (?)", "write");
+            return currentNode();
+        });
+
+        assertEquals(PRIMARY, node);
+        assertEquals(List.of("write"), new JdbcTemplate(primaryPool).queryForList("SELECT value FROM probe", String.class));
+        assertEquals(List.of(), new JdbcTemplate(replicaPool).queryForList("SELECT value FROM probe", String.class));
+    }
+
+    @Test
+    void userReadsOwnWritesFromPrimary() {
+        authenticate(42L);
+        assertEquals(REPLICA, readNode());
+
+        writeTransaction().executeWithoutResult(status ->
+                jdbcTemplate.update("INSERT INTO probe (value) VALUES (?)", "order"));
+
+        assertEquals(PRIMARY, readNode());
+        authenticate(43L);
+        assertEquals(REPLICA, readNode());
+    }
+
+    @Test
+    void rolledBackWriteDoesNotPinUser() {
+        authenticate(42L);
+
+        writeTransaction().executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO probe (value) VALUES (?)", "order");
+            status.setRollbackOnly();
+        });
+
+        assertEquals(REPLICA, readNode());
+    }
+
+    @Test
+    void onPrimaryForcesReadOnlyTransactionToPrimary() {
+        assertEquals(PRIMARY, DataSourceRouting.onPrimary(this::readNode));
+        assertEquals(REPLICA, readNode());
+    }
+
+    @Test
+    void repositoryDefaultTransactionStaysOnPrimary() {
+        TransactionTemplate repositoryRead = readOnlyTransaction();
+        repositoryRead.setName("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById");
+
+        assertEquals(PRIMARY, repositoryRead.execute(status -> currentNode()));
+    }
+
+    private String readNode() {
+        return readOnlyTransaction().execute(status -> currentNode());
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private TransactionTemplate writeTransaction() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private static void authenticate(Long userId) {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken("user" + userId, null, List.of());
+        authentication.setDetails(userId);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private static HikariDataSource pool(PostgreSQLContainer<?> container, String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name + "-pool");
+        dataSource.setJdbcUrl(container.getJdbcUrl());
+        dataSource.setUsername(container.getUsername());
+        dataSource.setPassword(container.getPassword());
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+
+    private static void prepareNode(PostgreSQLContainer<?> container, String name) {
+        JdbcTemplate jdbc = new JdbcTemplate(
+                new DriverManagerDataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword()));
+        jdbc.execute("CREATE TABLE IF NOT EXISTS node (name varchar(16) NOT NULL)");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS probe (value varchar(16) NOT NULL)");
+        jdbc.execute("TRUNCATE node, probe");
+        jdbc.update("INSERT INTO node (name) VALUES (?)", name);
+    }
+}
@@ -0,0 +1,182 @@
+package org.home.sportshop.delivery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.home.sportshop.model.DeliverySlotUsage;
+import org.home.sportshop.repository.DeliverySlotUsageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Емкость слотов при конкурентном резервировании, освобождение при откате и сохранение счетчиков
+ */
+class DeliverySlotSchedulerTest {
+    private static final int CAPACITY = 5;
+
+    private final List<List<DeliverySlotUsage>> savedBatches = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+    private DeliverySlotScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new DeliverySlotScheduler(repository());
+        ReflectionTestUtils.setField(scheduler, "windows", List.of("09-13"));
+        ReflectionTestUtils.setField(scheduler, "horizonDays", 2);
+        ReflectionTestUtils.setField(scheduler, "courierCapacity", CAPACITY);
+        ReflectionTestUtils.setField(scheduler, "expressCapacity", CAPACITY);
+        scheduler.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void concurrentReservationsNeverExceedCapacity() throws InterruptedException {
+        Map<String, AtomicInteger> perSlot = new ConcurrentHashMap<>();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(40);
+        for (int i = 0; i < 40; i++) {
+            callers.execute(() -> {
+                try {
+                    start.await();
+                    String slot = scheduler.reserve("COURIER");
+                    perSlot.computeIfAbsent(slot, s -> new AtomicInteger()).incrementAndGet();
+                } catch (IllegalStateException e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertFalse(perSlot.isEmpty());
+        perSlot.values().forEach(count -> assertEquals(CAPACITY, count.get()));
+        assertEquals(40 - CAPACITY * perSlot.size(), rejected.get());
+        assertFalse(scheduler.hasCapacity("COURIER"));
+        assertThrows(IllegalStateException.class, () -> scheduler.reserve("COURIER"));
+    }
+
+    @Test
+    void rolledBackOrderReleasesSlot() {
+        TransactionSynchronizationManager.initSynchronization();
+        String slot = scheduler.reserve("EXPRESS");
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Ближайший слот снова свободен целиком
+        for (int i = 0; i < CAPACITY; i++) {
+            assertEquals(slot, scheduler.reserve("EXPRESS"));
+        }
+    }
+
+    @Test
+    void committedOrderKeepsSlot() {
+        TransactionSynchronizationManager.initSynchronization();
+        String slot = scheduler.reserve("EXPRESS");
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        for (int i = 1; i < CAPACITY; i++) {
+            assertEquals(slot, scheduler.reserve("EXPRESS"));
+        }
+        // Слот заполнен: следующий резерв уходит в другой слот или отклоняется, если других нет
+        String next;
+        try {
+            next = scheduler.reserve("EXPRESS");
+        } catch (IllegalStateException e) {
+            next = null;
+        }
+        assertNotEquals(slot, next);
+    }
+
+    @Test
+    void flushPersistsChangedCountersOnce() {
+        String slot = scheduler.reserve("COURIER");
+        scheduler.reserve("COURIER");
+        scheduler.reserve("EXPRESS");
+
+        scheduler.flush();
+
+        assertEquals(1, savedBatches.size());
+        List<DeliverySlotUsage> saved = savedBatches.get(0);
+        assertEquals(2, saved.size());
+        DeliverySlotUsage courier = saved.stream()
+                .filter(usage -> usage.getDeliveryMethod().equals("COURIER")).findFirst().orElseThrow();
+        assertEquals(Integer.valueOf(2), courier.getReserved());
+        assertEquals(slot, courier.getSlotDate() + " " + courier.getTimeWindow());
+
+        // Без изменений повторное сохранение не выполняется; после освобождения сохраняется тот же ID
+        scheduler.flush();
+        assertEquals(1, savedBatches.size());
+        scheduler.release("COURIER", slot);
+        scheduler.flush();
+        assertEquals(2, savedBatches.size());
+        DeliverySlotUsage updated = savedBatches.get(1).get(0);
+        assertNotNull(updated.getId());
+        assertEquals(courier.getId(), updated.getId());
+        assertEquals(Integer.valueOf(1), updated.getReserved());
+    }
+
+    /**
+     * Репозиторий, запоминающий каждый пакет сохранения и назначающий ID новым записям
+     */
+    @SuppressWarnings("unchecked")
+    private DeliverySlotUsageRepository repository() {
+        return (DeliverySlotUsageRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {DeliverySlotUsageRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findBySlotDateGreaterThanEqual":
+                            return List.of();
+                        case "saveAll":
+                            List<DeliverySlotUsage> batch = new ArrayList<>();
+                            for (DeliverySlotUsage usage : (Iterable<DeliverySlotUsage>) args[0]) {
+                                DeliverySlotUsage copy = new DeliverySlotUsage();
+                                copy.setId(usage.getId() != null ? usage.getId() : Long.valueOf(nextId.getAndIncrement()));
+                                copy.setDeliveryMethod(usage.getDeliveryMethod());
+                                copy.setSlotDate(usage.getSlotDate());
+                                copy.setTimeWindow(usage.getTimeWindow());
+                                copy.setReserved(usage.getReserved());
+                                batch.add(copy);
+                            }
+                            savedBatches.add(batch);
+                            return batch;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
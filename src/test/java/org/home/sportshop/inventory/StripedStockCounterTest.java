@@ -0,0 +1,51 @@
+package org.home.sportshop.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Изменение остатка разницей при действующих резервах и погашение недостачи
+ */
+class StripedStockCounterTest {
+
+    @Test
+    void adjustKeepsUnitsTakenByReservations() {
+        StripedStockCounter counter = new StripedStockCounter(10, 4);
+        assertTrue(counter.tryTake(3));
+
+        // Администратор поднял stock с 10 до 15: резерв на 3 единицы сохраняется
+        counter.adjust(5);
+
+        assertEquals(12, counter.available());
+    }
+
+    @Test
+    void reductionBelowReservedLeavesDeficitUntilReturned() {
+        StripedStockCounter counter = new StripedStockCounter(10, 4);
+        assertTrue(counter.tryTake(8));
+
+        counter.adjust(-6);
+        assertEquals(-4, counter.available());
+        assertFalse(counter.tryTake(1));
+
+        // Отмененный резерв сначала покрывает недостачу
+        counter.give(5);
+        assertEquals(1, counter.available());
+        assertTrue(counter.tryTake(1));
+        assertFalse(counter.tryTake(1));
+    }
+
+    @Test
+    void negativeInitialValueStartsAsDeficit() {
+        StripedStockCounter counter = new StripedStockCounter(-2, 4);
+
+        counter.give(3);
+
+        assertEquals(1, counter.available());
+        assertTrue(counter.tryTake(1));
+        assertEquals(0, counter.available());
+    }
+}
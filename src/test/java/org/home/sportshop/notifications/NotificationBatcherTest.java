@@ -0,0 +1,96 @@
+package org.home.sportshop.notifications;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Окно пакетирования, сворачивание смен статуса и поведение после остановки
+ */
+class NotificationBatcherTest {
+    private final List<List<NotificationBatcher.PendingNotification>> batches = new CopyOnWriteArrayList<>();
+    private NotificationBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    void coalescesStatusChangesWithinWindow() throws InterruptedException {
+        batcher = new NotificationBatcher("test", 100, 100, batches::add);
+
+        batcher.enqueue(1L, "a@example.com", "NEW", "PAID");
+        batcher.enqueue(1L, "a@example.com", "PAID", "SHIPPED");
+        batcher.enqueue(2L, "b@example.com", "NEW", "PAID");
+        awaitBatches(1);
+
+        List<NotificationBatcher.PendingNotification> batch = batches.get(0);
+        assertEquals(2, batch.size());
+        NotificationBatcher.PendingNotification first = batch.get(0);
+        assertEquals(Long.valueOf(1), first.getOrderId());
+        assertEquals("NEW", first.getOldStatus());
+        assertEquals("SHIPPED", first.getNewStatus());
+        assertEquals(2, first.getCoalescedEvents());
+    }
+
+    @Test
+    void dropsTransitionsBackToOriginalStatus() {
+        batcher = new NotificationBatcher("test", 10_000, 100, batches::add);
+
+        batcher.enqueue(1L, "a@example.com", "NEW", "PAID");
+        batcher.enqueue(1L, "a@example.com", "PAID", "NEW");
+        batcher.enqueue(2L, "b@example.com", "NEW", "PAID");
+        batcher.flush();
+
+        assertEquals(1, batches.size());
+        assertEquals(1, batches.get(0).size());
+        assertEquals(Long.valueOf(2), batches.get(0).get(0).getOrderId());
+
+        batcher.enqueue(3L, "c@example.com", "NEW", "PAID");
+        batcher.enqueue(3L, "c@example.com", "PAID", "NEW");
+        batcher.flush();
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void sendsFullBatchWithoutWaitingForWindow() throws InterruptedException {
+        batcher = new NotificationBatcher("test", 10_000, 2, batches::add);
+
+        batcher.enqueue(1L, "a@example.com", "NEW", "PAID");
+        batcher.enqueue(2L, "b@example.com", "NEW", "PAID");
+        awaitBatches(1);
+
+        assertEquals(2, batches.get(0).size());
+        assertEquals(0, batcher.getPendingCount());
+    }
+
+    @Test
+    void shutdownSendsPendingAndDeliversLateEvents() {
+        batcher = new NotificationBatcher("test", 10_000, 100, batches::add);
+        batcher.enqueue(1L, "a@example.com", "NEW", "PAID");
+
+        batcher.shutdown();
+        assertEquals(1, batches.size());
+
+        assertDoesNotThrow(() -> batcher.enqueue(2L, "b@example.com", "NEW", "PAID"));
+        assertEquals(2, batches.size());
+        assertEquals(Long.valueOf(2), batches.get(1).get(0).getOrderId());
+    }
+
+    private void awaitBatches(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (batches.size() < count) {
+            assertTrue(System.currentTimeMillis() < deadline, "Пакет уведомлений не отправлен");
+            Thread.sleep(5);
+        }
+    }
+}
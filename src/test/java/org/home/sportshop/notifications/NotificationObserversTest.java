@@ -0,0 +1,107 @@
+package org.home.sportshop.notifications;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.home.sportshop.model.Customer;
+import org.home.sportshop.model.Order;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Email- и SMS-уведомления на локальных заменах провайдеров, записывающих отправленные пакеты
+ */
+class NotificationObserversTest {
+
+    @Test
+    void emailObserverSendsCoalescedBatch() {
+        RecordingSender sender = new RecordingSender();
+        EmailNotificationObserver observer = new EmailNotificationObserver(sender::sendBulk, 10_000, 100);
+
+        observer.update(new OrderEvent(order(1L, "a@example.com", "+70000000001"), "NEW", "PAID"));
+        observer.update(new OrderEvent(order(1L, "a@example.com", "+70000000001"), "PAID", "SHIPPED"));
+        observer.update(new OrderEvent(order(2L, "b@example.com", "+70000000002"), "NEW", "PAID"));
+        observer.shutdown();
+
+        assertEquals(1, sender.batches.size());
+        List<NotificationMessage> messages = sender.batches.get(0);
+        assertEquals(2, messages.size());
+        assertEquals("a@example.com", messages.get(0).getRecipient());
+        assertEquals("Заказ #1: статус 'SHIPPED'", messages.get(0).getSubject());
+        assertTrue(messages.get(0).getText().contains("с 'NEW' на 'SHIPPED'"));
+    }
+
+    @Test
+    void smsObserverSkipsOrderReturnedToOriginalStatus() {
+        RecordingSender sender = new RecordingSender();
+        SMSNotificationObserver observer = new SMSNotificationObserver(sender::sendBulk, 10_000, 100);
+
+        observer.update(new OrderEvent(order(1L, "a@example.com", "+70000000001"), "NEW", "PAID"));
+        observer.update(new OrderEvent(order(1L, "a@example.com", "+70000000001"), "PAID", "NEW"));
+        observer.update(new OrderEvent(order(2L, "b@example.com", "+70000000002"), "NEW", "PAID"));
+        observer.shutdown();
+
+        assertEquals(1, sender.batches.size());
+        List<NotificationMessage> messages = sender.batches.get(0);
+        assertEquals(1, messages.size());
+        assertEquals("+70000000002", messages.get(0).getRecipient());
+        assertTrue(messages.get(0).getText().contains("#2 изменен с 'NEW' на 'PAID'"));
+    }
+
+    @Test
+    void observersDeliverEventsAfterShutdown() {
+        RecordingSender emails = new RecordingSender();
+        RecordingSender sms = new RecordingSender();
+        EmailNotificationObserver emailObserver = new EmailNotificationObserver(emails::sendBulk, 10_000, 100);
+        SMSNotificationObserver smsObserver = new SMSNotificationObserver(sms::sendBulk, 10_000, 100);
+        emailObserver.shutdown();
+        smsObserver.shutdown();
+
+        OrderEvent event = new OrderEvent(order(1L, "a@example.com", "+70000000001"), "NEW", "PAID");
+        emailObserver.update(event);
+        smsObserver.update(event);
+
+        assertEquals(1, emails.batches.size());
+        assertEquals(1, sms.batches.size());
+    }
+
+    @Test
+    void skipsCustomersWithoutContacts() {
+        RecordingSender emails = new RecordingSender();
+        RecordingSender sms = new RecordingSender();
+        EmailNotificationObserver emailObserver = new EmailNotificationObserver(emails::sendBulk, 10_000, 100);
+        SMSNotificationObserver smsObserver = new SMSNotificationObserver(sms::sendBulk, 10_000, 100);
+
+        OrderEvent event = new OrderEvent(order(1L, " ", null), "NEW", "PAID");
+        emailObserver.update(event);
+        smsObserver.update(event);
+        emailObserver.shutdown();
+        smsObserver.shutdown();
+
+        assertTrue(emails.batches.isEmpty());
+        assertTrue(sms.batches.isEmpty());
+    }
+
+    private static Order order(Long id, String email, String phone) {
+        Customer customer = new Customer();
+        customer.setEmail(email);
+        customer.setPhone(phone);
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomer(customer);
+        return order;
+    }
+
+    /**
+     * Замена провайдера рассылки: запоминает каждый пакетный вызов
+     */
+    private static class RecordingSender {
+        private final List<List<NotificationMessage>> batches = new CopyOnWriteArrayList<>();
+
+        void sendBulk(List<NotificationMessage> messages) {
+            batches.add(List.copyOf(messages));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package org.home.sportshop.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Лимиты асинхронной обработки платежей на заглушке шлюза
+ */
+class AsyncPaymentProcessorTest {
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    private CountingGateway gateway;
+    private PaymentService paymentService;
+    private AsyncPaymentProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        gateway = new CountingGateway();
+        gateway.setFaultMethods(List.of());
+        paymentService = new PaymentService(gateway, mock(PaymentLedgerService.class));
+        ReflectionTestUtils.setField(paymentService, "maxConcurrentCalls", 10);
+        ReflectionTestUtils.setField(paymentService, "queueCapacity", 20);
+        ReflectionTestUtils.setField(paymentService, "callTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(paymentService, "failureThreshold", 5);
+        ReflectionTestUtils.setField(paymentService, "openDurationMs", 30000L);
+        ReflectionTestUtils.setField(paymentService, "halfOpenProbes", 1);
+        paymentService.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (processor != null) {
+            processor.shutdown();
+        }
+        paymentService.shutdown();
+    }
+
+    @Test
+    void rejectsSubmitWhenInFlightLimitReached() throws InterruptedException {
+        gateway.setLatencyMs(300);
+        processor = createProcessor(2, 8, 60);
+
+        PaymentStatus first = processor.submit("CREDIT_CARD", "1", AMOUNT);
+        PaymentStatus second = processor.submit("CREDIT_CARD", "2", AMOUNT);
+        assertThrows(RejectedExecutionException.class, () -> processor.submit("CREDIT_CARD", "3", AMOUNT));
+
+        awaitCompleted(first);
+        awaitCompleted(second);
+        PaymentStatus next = processor.submit("CREDIT_CARD", "4", AMOUNT);
+        awaitCompleted(next);
+        assertEquals(PaymentStatus.State.SUCCEEDED, next.getState());
+    }
+
+    @Test
+    void limitsConcurrentGatewayCallsPerMethod() throws InterruptedException {
+        gateway.setLatencyMs(200);
+        processor = createProcessor(100, 2, 60);
+
+        List<PaymentStatus> submitted = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            submitted.add(processor.submit("CREDIT_CARD", "card-" + i, AMOUNT));
+            submitted.add(processor.submit("PAYPAL", "paypal-" + i, AMOUNT));
+        }
+        for (PaymentStatus status : submitted) {
+            awaitCompleted(status);
+            assertEquals(PaymentStatus.State.SUCCEEDED, status.getState());
+        }
+
+        assertEquals(2, gateway.maxConcurrent("CREDIT_CARD"));
+        assertEquals(2, gateway.maxConcurrent("PAYPAL"));
+    }
+
+    @Test
+    void slowMethodDoesNotDelayOtherMethods() throws InterruptedException {
+        gateway.setFaultMethods(List.of("CREDIT_CARD"));
+        gateway.setLatencyMs(1000);
+        processor = createProcessor(100, 2, 60);
+
+        List<PaymentStatus> slow = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            slow.add(processor.submit("CREDIT_CARD", "card-" + i, AMOUNT));
+        }
+        long started = System.currentTimeMillis();
+        PaymentStatus fast = processor.submit("PAYPAL", "paypal-1", AMOUNT);
+        awaitCompleted(fast);
+
+        assertEquals(PaymentStatus.State.SUCCEEDED, fast.getState());
+        assertTrue(System.currentTimeMillis() - started < 500, "Платеж PAYPAL ждал пул CREDIT_CARD");
+        assertEquals(2, gateway.maxConcurrent("CREDIT_CARD"));
+        for (PaymentStatus status : slow) {
+            awaitCompleted(status);
+        }
+    }
+
+    @Test
+    void evictsCompletedStatusesAfterTtl() throws InterruptedException {
+        processor = createProcessor(10, 8, 0);
+
+        PaymentStatus status = processor.submit("CREDIT_CARD", "1", AMOUNT);
+        awaitCompleted(status);
+        Thread.sleep(20);
+        processor.evictCompleted();
+
+        assertNull(processor.getStatus(status.getPaymentId()));
+    }
+
+    @Test
+    void keepsStatusesWithinTtlAndInProgress() throws InterruptedException {
+        gateway.setLatencyMs(300);
+        processor = createProcessor(10, 8, 60);
+
+        PaymentStatus completed = processor.submit("PAYPAL", "1", AMOUNT);
+        awaitCompleted(completed);
+        PaymentStatus running = processor.submit("CREDIT_CARD", "2", AMOUNT);
+        processor.evictCompleted();
+
+        assertNotNull(processor.getStatus(completed.getPaymentId()));
+        assertNotNull(processor.getStatus(running.getPaymentId()));
+        awaitCompleted(running);
+    }
+
+    private AsyncPaymentProcessor createProcessor(int maxInFlight, int perMethodConcurrency, long statusTtlMinutes) {
+        AsyncPaymentProcessor created = new AsyncPaymentProcessor(paymentService);
+        ReflectionTestUtils.setField(created, "maxInFlight", maxInFlight);
+        ReflectionTestUtils.setField(created, "perMethodConcurrency", perMethodConcurrency);
+        ReflectionTestUtils.setField(created, "statusTtlMinutes", statusTtlMinutes);
+        created.init();
+        return created;
+    }
+
+    private static void awaitCompleted(PaymentStatus status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!status.isCompleted()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Платеж " + status.getPaymentId() + " не завершился");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Заглушка шлюза, запоминающая максимальное число одновременных вызовов по каждому методу
+     */
+    private static class CountingGateway extends StubPaymentGateway {
+        private final Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> peak = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean charge(String paymentMethod, String orderId, BigDecimal amount) {
+            int current = active.computeIfAbsent(paymentMethod, m -> new AtomicInteger()).incrementAndGet();
+            peak.computeIfAbsent(paymentMethod, m -> new AtomicInteger()).accumulateAndGet(current, Math::max);
+            try {
+                return super.charge(paymentMethod, orderId, amount);
+            } finally {
+                active.get(paymentMethod).decrementAndGet();
+            }
+        }
+
+        int maxConcurrent(String paymentMethod) {
+            AtomicInteger value = peak.get(paymentMethod);
+            return value == null ? 0 : value.get();
+        }
+    }
+}
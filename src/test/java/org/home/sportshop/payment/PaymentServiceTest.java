@@ -0,0 +1,83 @@
+package org.home.sportshop.payment;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.home.sportshop.model.PaymentLedgerEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Журнал платежей при отказах провайдера: открытый выключатель и таймаут
+ */
+class PaymentServiceTest {
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    private StubPaymentGateway gateway;
+    private PaymentLedgerService ledgerService;
+    private PaymentService paymentService;
+    private PaymentLedgerEntry attempt;
+
+    @BeforeEach
+    void setUp() {
+        gateway = new StubPaymentGateway();
+        gateway.setFaultMethods(List.of());
+        ledgerService = mock(PaymentLedgerService.class);
+        attempt = new PaymentLedgerEntry();
+        when(ledgerService.openAttempt(anyString(), anyString(), any())).thenReturn(attempt);
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentService.shutdown();
+    }
+
+    @Test
+    void openCircuitRejectsBeforeLedgerAttempt() {
+        gateway.setFailureRate(1.0);
+        paymentService = createService(1000, 1);
+
+        assertFalse(paymentService.processPayment("CREDIT_CARD", "1", AMOUNT));
+        assertThrows(RejectedExecutionException.class, () -> paymentService.processPayment("CREDIT_CARD", "2", AMOUNT));
+
+        verify(ledgerService, times(1)).openAttempt(anyString(), anyString(), any());
+        verify(ledgerService).completeAttempt(attempt, false);
+    }
+
+    @Test
+    void timeoutMarksAttemptUnknown() {
+        gateway.setLatencyMs(1000);
+        paymentService = createService(100, 5);
+
+        assertThrows(PaymentOutcomeUnknownException.class, () -> paymentService.processPayment("CREDIT_CARD", "1", AMOUNT));
+
+        verify(ledgerService).markUnknown(attempt);
+        verify(ledgerService, never()).completeAttempt(any(), anyBoolean());
+    }
+
+    private PaymentService createService(long callTimeoutMs, int failureThreshold) {
+        PaymentService service = new PaymentService(gateway, ledgerService);
+        ReflectionTestUtils.setField(service, "maxConcurrentCalls", 10);
+        ReflectionTestUtils.setField(service, "queueCapacity", 20);
+        ReflectionTestUtils.setField(service, "callTimeoutMs", callTimeoutMs);
+        ReflectionTestUtils.setField(service, "failureThreshold", failureThreshold);
+        ReflectionTestUtils.setField(service, "openDurationMs", 60000L);
+        ReflectionTestUtils.setField(service, "halfOpenProbes", 1);
+        service.init();
+        return service;
+    }
+}
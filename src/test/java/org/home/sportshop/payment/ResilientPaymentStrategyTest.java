@@ -0,0 +1,194 @@
+package org.home.sportshop.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Выключатель, таймаут и bulkhead провайдера на заглушке шлюза с внедрением сбоев
+ */
+class ResilientPaymentStrategyTest {
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    private StubPaymentGateway gateway;
+    private ExecutorService callers;
+    private ResilientPaymentStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        gateway = new StubPaymentGateway();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (strategy != null) {
+            strategy.shutdown();
+        }
+    }
+
+    @Test
+    void opensCircuitAfterConsecutiveFailures() {
+        gateway.setFailureRate(1.0);
+        strategy = createStrategy(10, 10, 1000, new PaymentCircuitBreaker(3, 60000, 1));
+
+        for (int i = 0; i < 3; i++) {
+            assertFalse(strategy.processPayment("order-" + i, AMOUNT));
+        }
+        assertEquals(PaymentCircuitBreaker.State.OPEN, strategy.getMetrics().get("circuitState"));
+
+        assertThrows(RejectedExecutionException.class, () -> strategy.processPayment("order-3", AMOUNT));
+        assertEquals(1L, strategy.getMetrics().get("rejectedByCircuit"));
+        assertEquals(3L, strategy.getMetrics().get("failures"));
+    }
+
+    @Test
+    void openCircuitSkipsBeforeCall() {
+        gateway.setFailureRate(1.0);
+        strategy = createStrategy(10, 10, 1000, new PaymentCircuitBreaker(1, 60000, 1));
+        assertFalse(strategy.processPayment("order-1", AMOUNT));
+
+        boolean[] called = new boolean[1];
+        assertThrows(RejectedExecutionException.class,
+                () -> strategy.processPayment("order-2", AMOUNT, () -> called[0] = true));
+        assertFalse(called[0]);
+    }
+
+    @Test
+    void halfOpenProbeSuccessClosesCircuit() throws Exception {
+        gateway.setFailureRate(1.0);
+        strategy = createStrategy(10, 10, 2000, new PaymentCircuitBreaker(1, 100, 1));
+        assertFalse(strategy.processPayment("order-1", AMOUNT));
+        assertEquals(PaymentCircuitBreaker.State.OPEN, strategy.getMetrics().get("circuitState"));
+
+        Thread.sleep(150);
+        gateway.setFailureRate(0.0);
+        gateway.setLatencyMs(300);
+        Future<Boolean> probe = callers.submit(() -> strategy.processPayment("order-2", AMOUNT));
+        awaitCondition(() -> ((Integer) strategy.getMetrics().get("activeCalls")) == 1);
+
+        // Пока пробный вызов не завершен, остальные вызовы отклоняются
+        assertEquals(PaymentCircuitBreaker.State.HALF_OPEN, strategy.getMetrics().get("circuitState"));
+        assertThrows(RejectedExecutionException.class, () -> strategy.processPayment("order-3", AMOUNT));
+
+        assertTrue(probe.get(2, TimeUnit.SECONDS));
+        assertEquals(PaymentCircuitBreaker.State.CLOSED, strategy.getMetrics().get("circuitState"));
+        gateway.setLatencyMs(0);
+        assertTrue(strategy.processPayment("order-4", AMOUNT));
+    }
+
+    @Test
+    void halfOpenProbeFailureReopensCircuit() throws InterruptedException {
+        gateway.setFailureRate(1.0);
+        strategy = createStrategy(10, 10, 1000, new PaymentCircuitBreaker(1, 100, 1));
+        assertFalse(strategy.processPayment("order-1", AMOUNT));
+
+        Thread.sleep(150);
+        assertFalse(strategy.processPayment("order-2", AMOUNT));
+
+        assertEquals(PaymentCircuitBreaker.State.OPEN, strategy.getMetrics().get("circuitState"));
+        assertThrows(RejectedExecutionException.class, () -> strategy.processPayment("order-3", AMOUNT));
+    }
+
+    @Test
+    void timeoutLeavesOutcomeUnknown() {
+        gateway.setLatencyMs(1000);
+        strategy = createStrategy(10, 10, 100, new PaymentCircuitBreaker(5, 60000, 1));
+
+        PaymentOutcomeUnknownException e = assertThrows(PaymentOutcomeUnknownException.class,
+                () -> strategy.processPayment("order-1", AMOUNT));
+
+        assertEquals("order-1", e.getOrderId());
+        assertEquals(1L, strategy.getMetrics().get("timeouts"));
+        assertEquals(1, strategy.getMetrics().get("consecutiveFailures"));
+    }
+
+    @Test
+    void rejectsWhenBulkheadIsFull() throws Exception {
+        gateway.setLatencyMs(500);
+        strategy = createStrategy(1, 1, 5000, new PaymentCircuitBreaker(5, 60000, 1));
+
+        Future<Boolean> running = callers.submit(() -> strategy.processPayment("order-1", AMOUNT));
+        awaitCondition(() -> ((Integer) strategy.getMetrics().get("activeCalls")) == 1);
+        Future<Boolean> queued = callers.submit(() -> strategy.processPayment("order-2", AMOUNT));
+        awaitCondition(() -> ((Integer) strategy.getMetrics().get("queuedCalls")) == 1);
+
+        assertThrows(RejectedExecutionException.class, () -> strategy.processPayment("order-3", AMOUNT));
+        assertEquals(1L, strategy.getMetrics().get("rejectedByBulkhead"));
+
+        assertTrue(running.get(3, TimeUnit.SECONDS));
+        assertTrue(queued.get(3, TimeUnit.SECONDS));
+        // Переполнение пула не считается сбоем провайдера
+        assertEquals(PaymentCircuitBreaker.State.CLOSED, strategy.getMetrics().get("circuitState"));
+        assertEquals(0, strategy.getMetrics().get("consecutiveFailures"));
+    }
+
+    @Test
+    void callTimedOutInQueueIsRejectedWithoutReachingProvider() throws Exception {
+        AtomicInteger providerCalls = new AtomicInteger();
+        PaymentStrategy slowProvider = new PaymentStrategy() {
+            @Override
+            public boolean processPayment(String orderId, BigDecimal amount) {
+                providerCalls.incrementAndGet();
+                // Провайдер не реагирует на прерывание, как блокирующий HTTP-клиент: поток занят до ответа
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(600);
+                while (System.nanoTime() < deadline) {
+                    Thread.onSpinWait();
+                }
+                return true;
+            }
+
+            @Override
+            public String getPaymentMethod() {
+                return "CREDIT_CARD";
+            }
+        };
+        strategy = new ResilientPaymentStrategy(slowProvider, 1, 1, 300, new PaymentCircuitBreaker(5, 60000, 1));
+
+        Future<Boolean> slow = callers.submit(() -> strategy.processPayment("order-1", AMOUNT));
+        awaitCondition(() -> ((Integer) strategy.getMetrics().get("activeCalls")) == 1);
+
+        // Второй вызов весь свой таймаут простоял в очереди за медленным первым
+        assertThrows(RejectedExecutionException.class, () -> strategy.processPayment("order-2", AMOUNT));
+        assertEquals(0, strategy.getMetrics().get("queuedCalls"));
+        assertEquals(1L, strategy.getMetrics().get("rejectedByBulkhead"));
+
+        // Первый вызов дошел до провайдера, поэтому его исход неизвестен
+        ExecutionException slowOutcome = assertThrows(ExecutionException.class, () -> slow.get(2, TimeUnit.SECONDS));
+        assertTrue(slowOutcome.getCause() instanceof PaymentOutcomeUnknownException);
+        awaitCondition(() -> ((Integer) strategy.getMetrics().get("activeCalls")) == 0);
+        assertEquals(1, providerCalls.get());
+        assertEquals(1L, strategy.getMetrics().get("timeouts"));
+        assertEquals(1, strategy.getMetrics().get("consecutiveFailures"));
+    }
+
+    private ResilientPaymentStrategy createStrategy(int maxConcurrent, int queueCapacity, long timeoutMs,
+                                                    PaymentCircuitBreaker circuitBreaker) {
+        return new ResilientPaymentStrategy(new CreditCardPaymentStrategy(gateway), maxConcurrent, queueCapacity,
+                timeoutMs, circuitBreaker);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Условие не выполнено за отведенное время");
+            Thread.sleep(5);
+        }
+    }
+}
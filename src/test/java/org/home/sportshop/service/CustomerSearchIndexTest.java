@@ -0,0 +1,67 @@
+package org.home.sportshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.home.sportshop.model.Customer;
+import org.home.sportshop.model.dto.CustomerSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Постраничный префиксный поиск клиентов
+ */
+class CustomerSearchIndexTest {
+    private CustomerSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CustomerSearchIndex(null);
+        // Клиенты добавляются в обратном порядке, чтобы порядок выдачи задавала сортировка, а не вставка
+        for (int i = 30; i >= 1; i--) {
+            index.index(customer((long) i, String.format("Иванов %02d", i), "ivanov" + i + "@example.com"));
+        }
+        index.index(customer(100L, "Петров", "petrov@example.com"));
+    }
+
+    @Test
+    void returnsRequestedPageInNameOrder() {
+        CustomerSearchIndex.SearchResult result = index.search("иван", 1, 5);
+
+        assertEquals(30, result.getTotalElements());
+        assertEquals(List.of("Иванов 06", "Иванов 07", "Иванов 08", "Иванов 09", "Иванов 10"), names(result));
+    }
+
+    @Test
+    void returnsShortLastPageAndEmptyPageBeyondResults() {
+        assertEquals(List.of("Иванов 29", "Иванов 30"), names(index.search("иван", 2, 14)));
+
+        CustomerSearchIndex.SearchResult beyond = index.search("иван", 5, 10);
+        assertEquals(30, beyond.getTotalElements());
+        assertTrue(beyond.getContent().isEmpty());
+    }
+
+    @Test
+    void intersectsQueryTokens() {
+        CustomerSearchIndex.SearchResult result = index.search("иванов ivanov1", 0, 20);
+
+        // ivanov1@..., ivanov10@... - ivanov19@...
+        assertEquals(11, result.getTotalElements());
+        assertEquals("Иванов 01", result.getContent().get(0).getName());
+    }
+
+    private static List<String> names(CustomerSearchIndex.SearchResult result) {
+        return result.getContent().stream().map(CustomerSummary::getName).collect(Collectors.toList());
+    }
+
+    private static Customer customer(Long id, String name, String email) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setName(name);
+        customer.setEmail(email);
+        return customer;
+    }
+}
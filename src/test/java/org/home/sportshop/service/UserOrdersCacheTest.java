@@ -0,0 +1,63 @@
+package org.home.sportshop.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.home.sportshop.datasource.ReadYourWritesTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Вытеснение давно не запрашивавшихся пользователей при переполнении кэша заказов
+ */
+class UserOrdersCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private UserOrdersCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserOrdersCache(new ReadYourWritesTracker());
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(cache, "maxUsers", 2);
+    }
+
+    @Test
+    void overflowEvictsOnlyLeastRecentlyUsedUser() {
+        UserOrdersCache.CachedPage first = load(1L);
+        UserOrdersCache.CachedPage second = load(2L);
+        // Обращение к первому пользователю делает второго самым давним
+        assertSame(first, load(1L));
+
+        load(3L);
+        assertEquals(3, loads.get());
+
+        assertSame(first, load(1L));
+        assertEquals(3, loads.get());
+        UserOrdersCache.CachedPage reloaded = load(2L);
+        assertEquals(4, loads.get());
+        assertEquals(second.getTotalElements(), reloaded.getTotalElements());
+    }
+
+    @Test
+    void invalidateDropsOnlyThatUsersPages() {
+        load(1L);
+        UserOrdersCache.CachedPage other = load(2L);
+
+        cache.invalidate(1L);
+
+        load(1L);
+        assertEquals(3, loads.get());
+        assertSame(other, load(2L));
+    }
+
+    private UserOrdersCache.CachedPage load(Long userId) {
+        return cache.getOrLoad(userId, 0, 10, () -> {
+            loads.incrementAndGet();
+            return new UserOrdersCache.CachedPage(List.of(), userId, 1);
+        });
+    }
+}